@@ -0,0 +1,67 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.config;
+
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.util.zip.Deflater;
+
+public final class CompressionLevel {
+
+    private String[] mimeTypes;
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    @XmlAttribute
+    @XmlJavaTypeAdapter(value = AttributeAdapter.class)
+    public String[] getMimeTypes() {
+        return mimeTypes;
+    }
+
+    public void setMimeTypes(String[] mimeTypes) {
+        this.mimeTypes = mimeTypes;
+    }
+
+    public boolean matchesMimeType(String mimeType) {
+        if (mimeTypes != null && mimeType != null) {
+            for (String type : mimeTypes) {
+                if (type.endsWith("/*")) {
+                    if (mimeType.startsWith(type.substring(0, type.lastIndexOf("/*")))) {
+                        return true;
+                    }
+                } else if (type.equalsIgnoreCase(mimeType)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @XmlAttribute
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        if (level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION) {
+            this.level = level;
+        }
+    }
+
+}
@@ -63,6 +63,20 @@ public final class ConfigContent {
 
     private boolean printHtml = false;
 
+    private boolean streamHtml = false;
+
+    private boolean stateless = false;
+
+    private boolean lazyBeans = false;
+
+    private boolean copyAssets = true;
+
+    private boolean bundleAssets = false;
+
+    private int expressionCacheSize = 5000;
+
+    private int bootstrapThreads = Runtime.getRuntime().availableProcessors();
+
     private HtmlCompress compressHtml;
 
     private String packageScan;
@@ -77,6 +91,8 @@ public final class ConfigContent {
 
     private String tagSecretKey;
 
+    private boolean compactTagNames = false;
+
     ConfigContent() {
         secureUrls = new ArrayList<String>();
         nonSecureUrls = new ArrayList<String>();
@@ -136,6 +152,18 @@ public final class ConfigContent {
         return null;
     }
 
+    public UrlPattern getMatchingUrlPattern(String path) {
+        UrlPattern urlPattern = getUrlPattern(path);
+        if (urlPattern == null && StringUtils.isNotBlank(path) && urlPatterns != null) {
+            for (UrlPattern pattern : urlPatterns) {
+                if (pattern.getUrl().endsWith("/*") && path.startsWith(pattern.getUrl().replace("/*", ""))) {
+                    return pattern;
+                }
+            }
+        }
+        return urlPattern;
+    }
+
     public void setUrlPatterns(UrlPattern[] urlPatterns) {
         if (urlPatterns != null && urlPatterns.length > 0) {
             this.urlPatterns = urlPatterns;
@@ -288,6 +316,94 @@ public final class ConfigContent {
         this.printHtml = printHtml;
     }
 
+    @XmlElement(name = "copy-assets")
+    public boolean isCopyAssets() {
+        return copyAssets;
+    }
+
+    public void setCopyAssets(boolean copyAssets) {
+        this.copyAssets = copyAssets;
+    }
+
+    @XmlElement(name = "expression-cache-size")
+    public int getExpressionCacheSize() {
+        return expressionCacheSize;
+    }
+
+    public void setExpressionCacheSize(int expressionCacheSize) {
+        if (expressionCacheSize >= 0) {
+            this.expressionCacheSize = expressionCacheSize;
+        }
+    }
+
+    @XmlElement(name = "bootstrap-threads")
+    public int getBootstrapThreads() {
+        return bootstrapThreads;
+    }
+
+    public void setBootstrapThreads(int bootstrapThreads) {
+        if (bootstrapThreads > 0) {
+            this.bootstrapThreads = bootstrapThreads;
+        }
+    }
+
+    @XmlElement(name = "bundle-assets")
+    public boolean isBundleAssets() {
+        return bundleAssets;
+    }
+
+    public void setBundleAssets(boolean bundleAssets) {
+        this.bundleAssets = bundleAssets;
+    }
+
+    @XmlElement(name = "stream-html")
+    public boolean isStreamHtml() {
+        return streamHtml;
+    }
+
+    public boolean isStreamHtml(String path) {
+        UrlPattern urlPattern = getMatchingUrlPattern(path);
+        if (urlPattern != null && urlPattern.getStreamHtml() != null) {
+            return urlPattern.getStreamHtml();
+        }
+        return streamHtml;
+    }
+
+    public boolean isFlushHead(String path) {
+        UrlPattern urlPattern = getMatchingUrlPattern(path);
+        return urlPattern != null && Boolean.TRUE.equals(urlPattern.getFlushHead());
+    }
+
+    public void setStreamHtml(boolean streamHtml) {
+        this.streamHtml = streamHtml;
+    }
+
+    @XmlElement(name = "stateless")
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public boolean isStateless(String path) {
+        UrlPattern urlPattern = getMatchingUrlPattern(path);
+        if (urlPattern != null && urlPattern.getStateless() != null) {
+            return urlPattern.getStateless();
+        }
+        return stateless;
+    }
+
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+
+    @XmlElement(name = "lazy-beans")
+    public boolean isLazyBeans() {
+        return lazyBeans;
+    }
+
+    public void setLazyBeans(boolean lazyBeans) {
+        this.lazyBeans = lazyBeans;
+    }
+
     @XmlElement(name = "compress-html")
     public HtmlCompress getCompressHtml() {
         if (compressHtml == null) {
@@ -387,4 +503,13 @@ public final class ConfigContent {
             this.tagSecretKey = tagSecretKey;
         }
     }
+
+    @XmlElement(name = "compact-tag-names")
+    public boolean isCompactTagNames() {
+        return compactTagNames;
+    }
+
+    public void setCompactTagNames(boolean compactTagNames) {
+        this.compactTagNames = compactTagNames;
+    }
 }
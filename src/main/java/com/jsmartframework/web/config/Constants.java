@@ -34,19 +34,11 @@ public final class Constants {
 
     public static final String REQUEST_REDIRECT_WINDOW_PATH_AJAX_ATTR = "jsmart_request_redirect_window_path_ajax_attr";
 
-    public static final String REQUEST_TAG_ENCRYPT_CIPHER = "jsmart_request_tag_encrypt_cipher";
-
-    public static final String REQUEST_TAG_DECRYPT_CIPHER = "jsmart_request_tag_decrypt_cipher";
-
     public static final String REQUEST_EXPOSE_VARS_ATTR = "jsmart_request_expose_vars_attr";
 
-    public static final String REQUEST_AUTH_ENCRYPT_CIPHER = "jsmart_request_auth_encrypt_cipher";
-
-    public static final String REQUEST_AUTH_DECRYPT_CIPHER = "jsmart_request_auth_decrypt_cipher";
-
-    public static final String REQUEST_CSRF_ENCRYPT_CIPHER = "jsmart_request_csrf_encrypt_cipher";
+    public static final String REQUEST_STREAM_HTML_ATTR = "jsmart_request_stream_html_attr";
 
-    public static final String REQUEST_CSRF_DECRYPT_CIPHER = "jsmart_request_csrf_decrypt_cipher";
+    public static final String REQUEST_LAZY_BEANS_ATTR = "jsmart_request_lazy_beans_attr";
 
 
     public static final String SESSION_RESET_ATTR = "jsmart_session_reset_attr";
@@ -92,10 +84,18 @@ public final class Constants {
 
     public static final String WEB_CONFIG_XML_PATH = WEB_INF + PATH_SEPARATOR + WEB_CONFIG_XML;
 
+    public static final String ANNOTATION_INDEX_PATH = "META-INF/jsmart/annotation.index";
+
+    public static final String PAGE_INDEX_PATH = "META-INF/jsmart/page.index";
+
     public static final String FILTER_RESOURCES = "jsmart_resources.json";
 
     public static final String FILTER_HEADERS = "jsmart_headers.json";
 
+    public static final String ASSETS_URL_PATTERN = "/jsmart/*";
+
+    public static final String GZIP_FILE_EXTENSION = ".gz";
+
     public static final String MANIFEST = "/META-INF/MANIFEST.MF";
 
     public static final String IMPLEMENTATION_VERSION = "Implementation-Version";
@@ -19,14 +19,24 @@
 package com.jsmartframework.web.config;
 
 import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.util.zip.Deflater;
 
 public final class ContentEncode {
 
+    private static final int DEFAULT_MIN_SIZE = 1024;
+
     private String encode;
 
     private String[] mimeTypes;
 
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private int minSize = DEFAULT_MIN_SIZE;
+
+    private CompressionLevel[] compressionLevels;
+
     @XmlAttribute
     public String getEncode() {
         return encode;
@@ -48,4 +58,46 @@ public final class ContentEncode {
         this.mimeTypes = mimeTypes;
     }
 
+    @XmlAttribute
+    public int getLevel() {
+        return level;
+    }
+
+    public int getLevel(String mimeType) {
+        if (compressionLevels != null) {
+            for (CompressionLevel compressionLevel : compressionLevels) {
+                if (compressionLevel.matchesMimeType(mimeType)) {
+                    return compressionLevel.getLevel();
+                }
+            }
+        }
+        return level;
+    }
+
+    public void setLevel(int level) {
+        if (level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION) {
+            this.level = level;
+        }
+    }
+
+    @XmlAttribute
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        if (minSize >= 0) {
+            this.minSize = minSize;
+        }
+    }
+
+    @XmlElement(name = "compression-level")
+    public CompressionLevel[] getCompressionLevels() {
+        return compressionLevels;
+    }
+
+    public void setCompressionLevels(CompressionLevel[] compressionLevels) {
+        this.compressionLevels = compressionLevels;
+    }
+
 }
@@ -36,6 +36,8 @@ public final class FileVersion {
 
     private boolean auto;
 
+    private boolean hash;
+
     private String[] extensions;
 
     private String[] excludeFolders;
@@ -62,6 +64,15 @@ public final class FileVersion {
         this.auto = auto;
     }
 
+    @XmlAttribute
+    public boolean isHash() {
+        return hash;
+    }
+
+    public void setHash(boolean hash) {
+        this.hash = hash;
+    }
+
     @XmlAttribute
     @XmlJavaTypeAdapter(value = AttributeAdapter.class)
     public String[] getExtensions() {
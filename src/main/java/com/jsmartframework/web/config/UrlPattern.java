@@ -34,6 +34,12 @@ public final class UrlPattern {
 
     private boolean loggedAccess = true;
 
+    private Boolean streamHtml;
+
+    private Boolean flushHead;
+
+    private Boolean stateless;
+
     @XmlValue
     public String getUrl() {
         return url;
@@ -84,4 +90,31 @@ public final class UrlPattern {
         this.loggedAccess = loggedAccess;
     }
 
+    @XmlAttribute
+    public Boolean getStreamHtml() {
+        return streamHtml;
+    }
+
+    public void setStreamHtml(Boolean streamHtml) {
+        this.streamHtml = streamHtml;
+    }
+
+    @XmlAttribute
+    public Boolean getFlushHead() {
+        return flushHead;
+    }
+
+    public void setFlushHead(Boolean flushHead) {
+        this.flushHead = flushHead;
+    }
+
+    @XmlAttribute
+    public Boolean getStateless() {
+        return stateless;
+    }
+
+    public void setStateless(Boolean stateless) {
+        this.stateless = stateless;
+    }
+
 }
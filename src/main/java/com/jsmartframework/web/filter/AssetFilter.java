@@ -0,0 +1,111 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.filter;
+
+import static com.jsmartframework.web.config.Constants.GZIP_FILE_EXTENSION;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Enumeration;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public final class AssetFilter implements Filter {
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String VARY = "Vary";
+
+    private static final String GZIP = "gzip";
+
+    private ServletContext servletContext;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+        servletContext = config.getServletContext();
+    }
+
+    @Override
+    public void destroy() {
+        // DO NOTHING
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        if (httpRequest.getDispatcherType() != DispatcherType.REQUEST
+                || !("GET".equals(httpRequest.getMethod()) || "HEAD".equals(httpRequest.getMethod()))) {
+            filterChain.doFilter(httpRequest, httpResponse);
+            return;
+        }
+
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        String realPath = servletContext.getRealPath(path + GZIP_FILE_EXTENSION);
+
+        File gzipFile = realPath != null ? new File(realPath) : null;
+        if (gzipFile == null || !gzipFile.isFile()) {
+            filterChain.doFilter(httpRequest, httpResponse);
+            return;
+        }
+
+        // Asset has a precompressed variant so caches must consider the accepted encoding
+        httpResponse.addHeader(VARY, ACCEPT_ENCODING);
+
+        if (!isGzipAccepted(httpRequest)) {
+            filterChain.doFilter(httpRequest, httpResponse);
+            return;
+        }
+
+        // Serve the precompressed asset generated on startup instead of compressing it per request
+        httpResponse.setContentType(servletContext.getMimeType(path));
+        httpResponse.setHeader(CONTENT_ENCODING, GZIP);
+        httpResponse.setContentLength((int) gzipFile.length());
+        httpResponse.setDateHeader("Last-Modified", gzipFile.lastModified());
+
+        if ("GET".equals(httpRequest.getMethod())) {
+            Files.copy(gzipFile.toPath(), httpResponse.getOutputStream());
+        }
+    }
+
+    private boolean isGzipAccepted(HttpServletRequest httpRequest) {
+        Enumeration<String> accepted = httpRequest.getHeaders(ACCEPT_ENCODING);
+        while (accepted.hasMoreElements()) {
+            String headerValue = accepted.nextElement();
+            if (headerValue.contains(GZIP)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
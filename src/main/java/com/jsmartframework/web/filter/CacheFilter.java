@@ -21,6 +21,7 @@ package com.jsmartframework.web.filter;
 import static com.jsmartframework.web.config.Config.CONFIG;
 
 import com.jsmartframework.web.config.CachePattern;
+import com.jsmartframework.web.manager.FilterControl;
 
 import java.io.IOException;
 
@@ -42,6 +43,12 @@ public final class CacheFilter implements Filter {
 
     private static final String HEADER_X_FRAME_OPTIONS = "X-Frame-Options";
 
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     @Override
     public void init(FilterConfig config) throws ServletException {
         // DO NOTHING
@@ -63,14 +70,46 @@ public final class CacheFilter implements Filter {
             return;
         }
 
-        CachePattern cachePattern = CONFIG.getContent().getCachePattern(httpRequest.getRequestURI());
-        if (cachePattern != null && cachePattern.getCacheControl() != null) {
-            httpResponse.setHeader(HEADER_CACHE_CONTROL, cachePattern.getCacheControlHeader());
-            httpResponse.setHeader(HEADER_EXPIRES, cachePattern.getExpiresHeader());
+        // Files versioned by content hash get strong validators and never change under the same url
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        String fileHash = FilterControl.getFileHash(path);
+
+        if (fileHash != null && fileHash.equals(httpRequest.getQueryString())) {
+            httpResponse.setHeader(HEADER_CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        } else {
+            CachePattern cachePattern = CONFIG.getContent().getCachePattern(httpRequest.getRequestURI());
+            if (cachePattern != null && cachePattern.getCacheControl() != null) {
+                httpResponse.setHeader(HEADER_CACHE_CONTROL, cachePattern.getCacheControlHeader());
+                httpResponse.setHeader(HEADER_EXPIRES, cachePattern.getExpiresHeader());
+            }
         }
 
         // Add header for click jacking protection
         httpResponse.setHeader(HEADER_X_FRAME_OPTIONS, "DENY");
+
+        if (fileHash != null) {
+            String etag = "\"" + fileHash + "\"";
+            httpResponse.setHeader(HEADER_ETAG, etag);
+
+            if (isNotModified(httpRequest, etag)) {
+                httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
         filterChain.doFilter(httpRequest, httpResponse);
     }
+
+    private boolean isNotModified(HttpServletRequest httpRequest, String etag) {
+        String ifNoneMatch = httpRequest.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String match : ifNoneMatch.split(",")) {
+            match = match.trim();
+            if (match.equals("*") || match.equals(etag) || match.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -21,20 +21,24 @@ package com.jsmartframework.web.filter;
 import static com.jsmartframework.web.config.Config.CONFIG;
 import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
 
+import com.google.common.io.ByteStreams;
 import com.jsmartframework.web.config.ContentEncode;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.util.Enumeration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -59,13 +63,19 @@ public final class EncodeFilter implements Filter {
 
     private static final String VARY = "Vary";
 
+    private static final String ETAG = "ETag";
+
     private static final String GZIP = "gzip";
 
     private static final String DEFLATE = "deflate";
 
     private static final int BUFFER_SIZE = 8192;
 
-    private static final int DEFLATE_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    private static final int MAX_POOLED_DEFLATERS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(MAX_POOLED_DEFLATERS);
 
     private ServletContext servetContext;
 
@@ -76,7 +86,10 @@ public final class EncodeFilter implements Filter {
 
     @Override
     public void destroy() {
-        // DO NOTHING
+        Deflater deflater;
+        while ((deflater = deflaters.poll()) != null) {
+            deflater.end();
+        }
     }
 
     @Override
@@ -95,48 +108,46 @@ public final class EncodeFilter implements Filter {
         if (!httpResponse.isCommitted() && contentEncode != null && isMimeTypeAccepted(httpRequest, contentEncode)) {
             String accepted = getAcceptedEncoding(httpRequest, contentEncode);
 
-            DeflaterOutputStream gzipOutputStream = null;
-            ByteArrayOutputStream compressedByteArray = new ByteArrayOutputStream();
-
-            if (GZIP.equals(accepted)) {
-                gzipOutputStream = new GZIPOutputStream(compressedByteArray, BUFFER_SIZE);
-            } else if (DEFLATE.equals(accepted)) {
-                gzipOutputStream = new DeflaterOutputStream(compressedByteArray, new Deflater(DEFLATE_COMPRESSION_LEVEL, true), BUFFER_SIZE);
-            }
-
-            if (gzipOutputStream == null) {
+            if (accepted == null) {
                 filterChain.doFilter(httpRequest, httpResponse);
                 return;
             }
 
-            EncodingResponseWrapper responseWrapper = new EncodingResponseWrapper(httpResponse, gzipOutputStream);
+            final EncodingResponseWrapper responseWrapper = new EncodingResponseWrapper(httpResponse, httpRequest, accepted, contentEncode);
+            boolean asyncStarted = false;
+            try {
+                filterChain.doFilter(request, responseWrapper);
 
-            filterChain.doFilter(request, responseWrapper);
+                // Async processing keeps writing through the deflater after this filter returns, so the
+                // content is only finished and the deflater released once the async context is done
+                asyncStarted = httpRequest.isAsyncStarted();
+                if (asyncStarted) {
+                    httpRequest.getAsyncContext().addListener(new AsyncListener() {
 
-            // Flush and close current outputStream on responseWrapper
-            responseWrapper.flushBuffer();
-            gzipOutputStream.close();
+                        @Override
+                        public void onComplete(AsyncEvent event) throws IOException {
+                            responseWrapper.finishAndRelease();
+                        }
 
-            // If server throws any error mapped by customer just return
-            if (CONFIG.getContent().getErrorPage(responseWrapper.getStatus()) != null) {
-                return;
-            }
+                        @Override
+                        public void onTimeout(AsyncEvent event) throws IOException {
+                            responseWrapper.finishAndRelease();
+                        }
 
-            if (responseWrapper.getStatus() == HttpServletResponse.SC_NO_CONTENT 
-                    || responseWrapper.getStatus() ==  HttpServletResponse.SC_RESET_CONTENT
-                    || responseWrapper.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
-                return;
-            }
+                        @Override
+                        public void onError(AsyncEvent event) throws IOException {
+                            responseWrapper.finishAndRelease();
+                        }
 
-            if (!httpResponse.isCommitted()) {
-                try {
-                    byte[] compressedBytes = compressedByteArray.toByteArray();
-                    httpResponse.setHeader(CONTENT_ENCODING, accepted);
-                    httpResponse.addHeader(VARY, "Accept-Encoding, User-Agent");
-                    httpResponse.setContentLength(compressedBytes.length);
-                    httpResponse.getOutputStream().write(compressedBytes);
-                } catch (IOException ex) {
-                    LOGGER.log(Level.WARNING, "Exception on write the compressed response: " + ex.getMessage());
+                        @Override
+                        public void onStartAsync(AsyncEvent event) throws IOException {
+                            event.getAsyncContext().addListener(this);
+                        }
+                    });
+                }
+            } finally {
+                if (!asyncStarted) {
+                    responseWrapper.finishAndRelease();
                 }
             }
         } else {
@@ -144,6 +155,31 @@ public final class EncodeFilter implements Filter {
         }
     }
 
+    private Deflater acquireDeflater(int level) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        } else {
+            deflater.setLevel(level);
+        }
+        return deflater;
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private boolean isContentDiscarded(HttpServletResponse httpResponse) {
+        // If server throws any error mapped by customer the content is not written
+        return CONFIG.getContent().getErrorPage(httpResponse.getStatus()) != null
+                || httpResponse.getStatus() == HttpServletResponse.SC_NO_CONTENT
+                || httpResponse.getStatus() == HttpServletResponse.SC_RESET_CONTENT
+                || httpResponse.getStatus() == HttpServletResponse.SC_NOT_MODIFIED;
+    }
+
     private boolean isMimeTypeAccepted(HttpServletRequest httpRequest, ContentEncode contentEncode) {
         String requestMimeType = servetContext.getMimeType(httpRequest.getRequestURI());
         if (contentEncode.getMimeTypes() != null) {
@@ -196,11 +232,16 @@ public final class EncodeFilter implements Filter {
 
         private PrintWriter writer;
 
-        private final ServletOutputStream outputStream;
+        private long contentLength = -1;
 
-        public EncodingResponseWrapper(HttpServletResponse servletResponse, DeflaterOutputStream outputStream) {
+        private boolean finished;
+
+        private final EncodingServletOutputStream outputStream;
+
+        public EncodingResponseWrapper(HttpServletResponse servletResponse, HttpServletRequest servletRequest,
+                String accepted, ContentEncode contentEncode) {
             super(servletResponse);
-            this.outputStream = new EncodingServletOutputStream(outputStream);
+            this.outputStream = new EncodingServletOutputStream(this, servletResponse, servletRequest, accepted, contentEncode);
         }
 
         @Override
@@ -216,6 +257,34 @@ public final class EncodeFilter implements Filter {
             return writer;
         }
 
+        @Override
+        public void setContentLength(int length) {
+            // Length is only known after deciding whether the content is compressed
+            this.contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            // Length is only known after deciding whether the content is compressed
+            this.contentLength = length;
+        }
+
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            outputStream.resetBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            outputStream.resetBuffer();
+        }
+
         @Override
         public void flushBuffer() throws IOException {
             if (writer != null) {
@@ -223,49 +292,79 @@ public final class EncodeFilter implements Filter {
             }
             outputStream.flush();
         }
+
+        // Finish the compressed content or write the content which did not reach the minimum size
+        public synchronized void finishAndRelease() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                if (writer != null) {
+                    writer.flush();
+                }
+                outputStream.finish();
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Exception on write the compressed response: " + ex.getMessage());
+            } finally {
+                outputStream.release();
+            }
+        }
     }
 
     private class EncodingServletOutputStream extends ServletOutputStream {
 
-        private final OutputStream outputStream;
+        private final EncodingResponseWrapper responseWrapper;
+
+        private final HttpServletResponse response;
+
+        private final HttpServletRequest request;
+
+        private final String accepted;
+
+        private final ContentEncode contentEncode;
+
+        // Content is held until it reaches the minimum size to be compressed
+        private byte[] buffer;
+
+        private int bufferLength;
+
+        private OutputStream outputStream;
+
+        private EncodingDeflaterOutputStream deflaterStream;
 
         private WriteListener writeListener;
 
-        public EncodingServletOutputStream(OutputStream outputStream) {
-            this.outputStream = outputStream;
-        }
+        private final byte[] singleByte = new byte[1];
 
-        public void write(int b) throws IOException {
-            try {
-                outputStream.write(b);
-                if (writeListener != null) {
-                    writeListener.onWritePossible();
-                }
-            } catch (IOException ex) {
-                if (writeListener != null) {
-                    writeListener.onError(ex);
-                }
-                throw ex;
-            }
+        public EncodingServletOutputStream(EncodingResponseWrapper responseWrapper, HttpServletResponse response,
+                HttpServletRequest request, String accepted, ContentEncode contentEncode) {
+            this.responseWrapper = responseWrapper;
+            this.response = response;
+            this.request = request;
+            this.accepted = accepted;
+            this.contentEncode = contentEncode;
+            this.buffer = new byte[Math.min(contentEncode.getMinSize(), BUFFER_SIZE)];
         }
 
-        public void write(byte[] b) throws IOException {
-            try {
-                outputStream.write(b);
-                if (writeListener != null) {
-                    writeListener.onWritePossible();
-                }
-            } catch (IOException ex) {
-                if (writeListener != null) {
-                    writeListener.onError(ex);
-                }
-                throw ex;
-            }
+        public void write(int b) throws IOException {
+            singleByte[0] = (byte) b;
+            write(singleByte, 0, 1);
         }
 
         public void write(byte[] b, int off, int len) throws IOException {
             try {
-                outputStream.write(b, off, len);
+                if (outputStream == null && bufferLength + len <= contentEncode.getMinSize()) {
+                    if (bufferLength + len > buffer.length) {
+                        byte[] newBuffer = new byte[Math.min(Math.max(buffer.length * 2, bufferLength + len), contentEncode.getMinSize())];
+                        System.arraycopy(buffer, 0, newBuffer, 0, bufferLength);
+                        buffer = newBuffer;
+                    }
+                    System.arraycopy(b, off, buffer, bufferLength, len);
+                    bufferLength += len;
+                } else {
+                    getEncodingStream().write(b, off, len);
+                }
                 if (writeListener != null) {
                     writeListener.onWritePossible();
                 }
@@ -279,7 +378,13 @@ public final class EncodeFilter implements Filter {
 
         @Override
         public void flush() throws IOException {
-            outputStream.flush();
+            // Explicit flush must send the content held so far, such as early flushed html head
+            if (outputStream == null && bufferLength > 0) {
+                getEncodingStream();
+            }
+            if (outputStream != null) {
+                outputStream.flush();
+            }
         }
 
         @Override
@@ -291,6 +396,131 @@ public final class EncodeFilter implements Filter {
         public void setWriteListener(WriteListener writeListener) {
             this.writeListener = writeListener;
         }
+
+        public void resetBuffer() {
+            bufferLength = 0;
+        }
+
+        public void finish() throws IOException {
+            if (outputStream == null) {
+                if (bufferLength == 0 || response.isCommitted() || isContentDiscarded(response)) {
+                    return;
+                }
+                // Content smaller than minimum size is not worth compressing
+                response.setContentLength(bufferLength);
+                response.getOutputStream().write(buffer, 0, bufferLength);
+                bufferLength = 0;
+                return;
+            }
+            if (deflaterStream != null) {
+                deflaterStream.finish();
+            }
+            outputStream.flush();
+        }
+
+        public void release() {
+            if (deflaterStream != null) {
+                releaseDeflater(deflaterStream.getDeflater());
+                deflaterStream = null;
+            }
+        }
+
+        private OutputStream getEncodingStream() throws IOException {
+            if (outputStream == null) {
+                if (isContentDiscarded(response)) {
+                    // Error pages and statuses without body discard the content, as finish does for small content
+                    outputStream = ByteStreams.nullOutputStream();
+                } else if (response.isCommitted() || response.containsHeader(CONTENT_ENCODING)
+                        || response.getStatus() == HttpServletResponse.SC_PARTIAL_CONTENT) {
+                    // Content already encoded, such as precompressed assets, or partial content is written as it is
+                    if (!response.isCommitted() && responseWrapper.getContentLength() >= 0) {
+                        response.setContentLengthLong(responseWrapper.getContentLength());
+                    }
+                    outputStream = response.getOutputStream();
+                } else {
+                    String mimeType = response.getContentType();
+                    if (mimeType == null) {
+                        mimeType = servetContext.getMimeType(request.getRequestURI());
+                    } else if (mimeType.contains(";")) {
+                        mimeType = mimeType.substring(0, mimeType.indexOf(";")).trim();
+                    }
+
+                    response.setHeader(CONTENT_ENCODING, accepted);
+                    response.addHeader(VARY, "Accept-Encoding, User-Agent");
+
+                    // Strong validators must not be shared between the encoded and identity representations
+                    String etag = response.getHeader(ETAG);
+                    if (etag != null && !etag.startsWith("W/")) {
+                        response.setHeader(ETAG, "W/" + etag);
+                    }
+
+                    Deflater deflater = acquireDeflater(contentEncode.getLevel(mimeType));
+                    deflaterStream = new EncodingDeflaterOutputStream(response.getOutputStream(), deflater, GZIP.equals(accepted));
+                    outputStream = deflaterStream;
+                }
+                outputStream.write(buffer, 0, bufferLength);
+                bufferLength = 0;
+            }
+            return outputStream;
+        }
+    }
+
+    static class EncodingDeflaterOutputStream extends DeflaterOutputStream {
+
+        private final boolean gzip;
+
+        private final CRC32 crc = new CRC32();
+
+        private boolean finished;
+
+        public EncodingDeflaterOutputStream(OutputStream outputStream, Deflater deflater, boolean gzip) throws IOException {
+            super(outputStream, deflater, BUFFER_SIZE, true);
+            this.gzip = gzip;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        public Deflater getDeflater() {
+            return def;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (gzip) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            super.finish();
+
+            if (gzip) {
+                // GZIP trailer with CRC-32 and input size, both little endian
+                writeInt((int) crc.getValue());
+                writeInt((int) def.getBytesRead());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Container stream is not closed here, only the compressed content is finished
+            finish();
+            out.flush();
+        }
+
+        private void writeInt(int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >> 8) & 0xff);
+            out.write((value >> 16) & 0xff);
+            out.write((value >> 24) & 0xff);
+        }
     }
 
 }
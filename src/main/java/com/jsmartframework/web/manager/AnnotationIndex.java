@@ -0,0 +1,148 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.config.Constants.ANNOTATION_INDEX_PATH;
+import static com.jsmartframework.web.config.Constants.ENCODING;
+
+import org.reflections.Reflections;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+final class AnnotationIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(AnnotationIndex.class.getPackage().getName());
+
+    private final Reflections reflections;
+
+    private final Map<String, Set<Class<?>>> types;
+
+    private AnnotationIndex(Reflections reflections, Map<String, Set<Class<?>>> types) {
+        this.reflections = reflections;
+        this.types = types;
+    }
+
+    // Read the indexes written at compile time by AnnotationIndexProcessor and scan the classpath roots
+    // holding the packages which were not indexed, such as JARs compiled without the processor
+    static AnnotationIndex create(String[] packages) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Map<String, Set<Class<?>>> types = new HashMap<>();
+        Set<String> indexedRoots = new HashSet<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(ANNOTATION_INDEX_PATH);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                readIndex(url, packages, classLoader, types);
+                indexedRoots.add(getRoot(url, ANNOTATION_INDEX_PATH));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Annotation index could not be read: " + ex.getMessage());
+            types.clear();
+            indexedRoots.clear();
+        }
+
+        Set<URL> scanRoots = new LinkedHashSet<>();
+        FilterBuilder filter = new FilterBuilder();
+        for (String pkg : packages) {
+            filter.includePackage(pkg.trim());
+            for (URL url : ClasspathHelper.forPackage(pkg.trim(), classLoader)) {
+                if (!indexedRoots.contains(url.toExternalForm())) {
+                    scanRoots.add(url);
+                }
+            }
+        }
+
+        Reflections reflections = null;
+        if (!scanRoots.isEmpty()) {
+            LOGGER.log(Level.INFO, "Scanning not indexed classpath roots for annotated classes: " + scanRoots);
+            reflections = new Reflections(new ConfigurationBuilder().setUrls(scanRoots).filterInputsBy(filter)
+                    .addClassLoader(classLoader));
+        }
+        return new AnnotationIndex(reflections, types);
+    }
+
+    private static String getRoot(URL url, String resource) {
+        String externalForm = url.toExternalForm();
+        int index = externalForm.lastIndexOf(resource);
+        return index != -1 ? externalForm.substring(0, index) : externalForm;
+    }
+
+    private static void readIndex(URL url, String[] packages, ClassLoader classLoader,
+                                  Map<String, Set<Class<?>>> types) throws IOException {
+        LOGGER.log(Level.INFO, "Reading annotation index: " + url);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), ENCODING))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] entry = line.trim().split("\\s+");
+                if (entry.length != 2 || entry[0].startsWith("#") || !isScanned(entry[1], packages)) {
+                    continue;
+                }
+
+                try {
+                    Set<Class<?>> classes = types.get(entry[0]);
+                    if (classes == null) {
+                        types.put(entry[0], classes = new LinkedHashSet<>());
+                    }
+                    classes.add(Class.forName(entry[1], false, classLoader));
+                } catch (ClassNotFoundException ex) {
+                    LOGGER.log(Level.WARNING, "Indexed class [" + entry[1] + "] was not found on classpath");
+                }
+            }
+        }
+    }
+
+    // Same prefix match used by Reflections when scanning the packages
+    private static boolean isScanned(String className, String[] packages) {
+        for (String pkg : packages) {
+            if (className.startsWith(pkg.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        if (types.containsKey(annotation.getName())) {
+            classes.addAll(types.get(annotation.getName()));
+        }
+        if (reflections != null) {
+            classes.addAll(reflections.getTypesAnnotatedWith(annotation));
+        }
+        return classes;
+    }
+
+}
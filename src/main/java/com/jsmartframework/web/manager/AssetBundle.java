@@ -0,0 +1,123 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class AssetBundle {
+
+    static final String BUNDLE_PATH = "jsmart/bundle/";
+
+    static final String STYLE_BUNDLE = BUNDLE_PATH + "jsmart.css";
+
+    static final String SCRIPT_BUNDLE = BUNDLE_PATH + "jsmart.js";
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final int HASH_LENGTH = 16;
+
+    private static final Pattern CSS_URL_PATTERN = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+
+    private static final Pattern SOURCE_MAP_PATTERN = Pattern.compile("(?m)^\\s*(/\\*|//)# sourceMappingURL=.*$");
+
+    private final String path;
+
+    private final String hash;
+
+    private final byte[] content;
+
+    private AssetBundle(String path, byte[] content) {
+        this.path = path;
+        this.content = content;
+        this.hash = DigestUtils.sha256Hex(content).substring(0, HASH_LENGTH);
+    }
+
+    // Concatenate the framework resources found on classpath in the same order they are declared
+    static AssetBundle create(String path, List<String> resources, boolean style) throws IOException {
+        StringBuilder builder = new StringBuilder();
+
+        for (String resource : resources) {
+            InputStream is = AssetBundle.class.getClassLoader().getResourceAsStream(resource);
+            if (is == null) {
+                throw new IOException("Resource [" + resource + "] could not be found to be bundled");
+            }
+
+            String text;
+            try {
+                text = IOUtils.toString(is, CHARSET.name());
+            } finally {
+                is.close();
+            }
+
+            // Source maps do not apply to the bundled content
+            text = SOURCE_MAP_PATTERN.matcher(text).replaceAll("");
+
+            if (style) {
+                builder.append(rebaseUrls(resource, text)).append("\n");
+            } else {
+                builder.append(text).append("\n;\n");
+            }
+        }
+        return new AssetBundle(path, builder.toString().getBytes(CHARSET));
+    }
+
+    // Relative urls on styles must keep pointing to the same files after moving to the bundle folder
+    private static String rebaseUrls(String resource, String text) {
+        URI resourceDir = URI.create(resource.substring(0, resource.lastIndexOf('/') + 1));
+        StringBuffer buffer = new StringBuffer(text.length());
+
+        Matcher matcher = CSS_URL_PATTERN.matcher(text);
+        while (matcher.find()) {
+            String url = matcher.group(2).trim();
+            if (url.startsWith("/") || url.startsWith("#") || url.startsWith("data:") || url.contains("://")) {
+                continue;
+            }
+            try {
+                String rebased = "../../" + resourceDir.resolve(url).normalize();
+                matcher.appendReplacement(buffer, Matcher.quoteReplacement("url(" + matcher.group(1) + rebased + matcher.group(1) + ")"));
+            } catch (IllegalArgumentException ex) {
+                // Keep the url as it is
+            }
+        }
+        matcher.appendTail(buffer);
+        return buffer.toString();
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    String getHash() {
+        return hash;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+}
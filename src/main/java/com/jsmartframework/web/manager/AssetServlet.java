@@ -0,0 +1,451 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import com.jsmartframework.web.json.Resources;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+public final class AssetServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 5309862354291736405L;
+
+    private static final Logger LOGGER = Logger.getLogger(AssetServlet.class.getPackage().getName());
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final int MAX_MEMORY_ASSET = 256 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final String GZIP = "gzip";
+
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private Map<String, Asset> assets = Collections.emptyMap();
+
+    @Override
+    public void init(ServletConfig servletConfig) throws ServletException {
+        super.init(servletConfig);
+        ServletContext context = servletConfig.getServletContext();
+
+        String libFilePath = FilterControl.getLibFilePath(context);
+        if (libFilePath == null) {
+            return;
+        }
+
+        Resources jsonResources = FilterControl.getJsonResources();
+        File tempDir = (File) context.getAttribute(ServletContext.TEMPDIR);
+        Map<String, Asset> assetIndex = new HashMap<>();
+
+        // Index the library JAR entries once, reading it as stream so unexploded deployments also work
+        try (JarInputStream jarStream = new JarInputStream(context.getResourceAsStream(libFilePath))) {
+            JarEntry entry;
+            while ((entry = jarStream.getNextJarEntry()) != null) {
+                if (entry.isDirectory() || !isResource(jsonResources, entry.getName())) {
+                    continue;
+                }
+                assetIndex.put(entry.getName(), readAsset(context, tempDir, entry.getName(), entry.getTime(), jarStream));
+            }
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Could not index the JSmart library JAR assets: " + ex.getMessage());
+        }
+
+        // Bundles use their content hash as entity tag, the same validator sent by CacheFilter
+        try {
+            for (AssetBundle bundle : FilterControl.getAssetBundles().values()) {
+                String etag = "\"" + bundle.getHash() + "\"";
+                assetIndex.put(bundle.getPath(), createAsset(context, tempDir, bundle.getPath(), 0, etag, bundle.getContent()));
+            }
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Could not index the JSmart bundled assets: " + ex.getMessage());
+        }
+
+        assets = Collections.unmodifiableMap(assetIndex);
+        LOGGER.log(Level.INFO, "Serving [" + assets.size() + "] JSmart assets from library JAR");
+    }
+
+    @Override
+    public void destroy() {
+        // Extracted files belong to this deployment only, so they are removed instead of piling up on redeploys
+        for (Asset asset : assets.values()) {
+            deleteFile(asset);
+            if (asset.gzip != null) {
+                deleteFile(asset.gzip);
+            }
+        }
+        assets = Collections.emptyMap();
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        serveAsset(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        serveAsset(request, response, false);
+    }
+
+    private void serveAsset(HttpServletRequest request, HttpServletResponse response, boolean writeContent) throws IOException {
+        Asset asset = getAsset(request);
+        if (asset == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // Only single ranges are supported, other range formats are ignored and the whole content is sent.
+        // Ranges always apply to the identity representation, which has its own entity tag
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        boolean partial = range != null && RANGE_PATTERN.matcher(range.trim()).matches() && (ifRange == null || ifRange.equals(asset.etag));
+        boolean gzip = !partial && asset.gzip != null && isGzipAccepted(request);
+        String etag = gzip ? asset.gzip.etag : asset.etag;
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", asset.lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (asset.gzip != null) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+
+        if (isNotModified(request, asset, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(asset.mimeType);
+
+        if (partial) {
+            long[] bounds = getRangeBounds(range, asset.length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + asset.length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + asset.length);
+            writeContent(request, response, asset, bounds[0], bounds[1] - bounds[0] + 1, writeContent);
+
+        } else if (gzip) {
+            response.setHeader("Content-Encoding", GZIP);
+            writeContent(request, response, asset.gzip, 0, asset.gzip.length, writeContent);
+        } else {
+            writeContent(request, response, asset, 0, asset.length, writeContent);
+        }
+    }
+
+    private Asset getAsset(HttpServletRequest request) {
+        String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        return assets.get(path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    private boolean isNotModified(HttpServletRequest request, Asset asset, String etag) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String match : ifNoneMatch.split(",")) {
+                match = match.trim();
+                if (match.equals("*") || match.equals(etag) || match.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince >= 0 && asset.lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+    }
+
+    static long[] getRangeBounds(String range, long length) {
+        Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+
+        long start;
+        long end;
+        if (matcher.group(1).isEmpty()) {
+            start = Math.max(0, length - parsePosition(matcher.group(2)));
+            end = length - 1;
+        } else {
+            start = parsePosition(matcher.group(1));
+            end = matcher.group(2).isEmpty() ? length - 1 : Math.min(parsePosition(matcher.group(2)), length - 1);
+        }
+        return start <= end && start < length ? new long[] {start, end} : null;
+    }
+
+    // Positions too large for long values are beyond any content length
+    private static long parsePosition(String position) {
+        try {
+            return Long.parseLong(position);
+        } catch (NumberFormatException ex) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private boolean isGzipAccepted(HttpServletRequest request) {
+        Enumeration<String> accepted = request.getHeaders("Accept-Encoding");
+        while (accepted.hasMoreElements()) {
+            if (accepted.nextElement().contains(GZIP)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // In memory assets are written straight from their array, large ones are sent by the container from the
+    // file when it supports it (Tomcat sendfile) and the response is not wrapped, otherwise from the mapped file
+    private void writeContent(HttpServletRequest request, HttpServletResponse response, Asset asset, long start,
+                              long length, boolean writeContent) throws IOException {
+        response.setContentLength((int) length);
+        if (!writeContent) {
+            return;
+        }
+
+        if (asset.content != null) {
+            response.getOutputStream().write(asset.content, (int) start, (int) length);
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && !(response instanceof HttpServletResponseWrapper)) {
+            request.setAttribute(SENDFILE_FILENAME, asset.file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        ByteBuffer region = slice(asset.mapped, start, length);
+        while (region.hasRemaining()) {
+            channel.write(region);
+        }
+    }
+
+    private boolean isResource(Resources jsonResources, String name) {
+        for (String resource : jsonResources.getResources()) {
+            if (name.startsWith(resource.replace("*", ""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Entries up to the memory limit are kept in memory, larger ones are streamed to a temporary file
+    // while their digest is calculated, so the whole JAR content is never held in memory
+    private Asset readAsset(ServletContext context, File tempDir, String name, long time, InputStream is) throws IOException {
+        byte[] head = new byte[MAX_MEMORY_ASSET + 1];
+        int headLength = 0;
+        int count;
+        while (headLength < head.length && (count = is.read(head, headLength, head.length - headLength)) != -1) {
+            headLength += count;
+        }
+
+        if (headLength <= MAX_MEMORY_ASSET) {
+            byte[] content = Arrays.copyOf(head, headLength);
+            return createAsset(context, tempDir, name, time, "\"" + DigestUtils.md5Hex(content) + "\"", content);
+        }
+
+        MessageDigest digest = DigestUtils.getMd5Digest();
+        File file = createTempFile(tempDir);
+        try (OutputStream fileStream = new DigestOutputStream(new FileOutputStream(file), digest)) {
+            fileStream.write(head, 0, headLength);
+            IOUtils.copy(is, fileStream);
+        }
+
+        Asset asset = new Asset();
+        asset.mimeType = context.getMimeType(name);
+        asset.etag = "\"" + Hex.encodeHexString(digest.digest()) + "\"";
+        asset.lastModified = time > 0 ? time : System.currentTimeMillis();
+        mapFile(asset, file);
+        mapGzipFile(tempDir, name, asset);
+        return asset;
+    }
+
+    private Asset createAsset(ServletContext context, File tempDir, String name, long time, String etag, byte[] content) throws IOException {
+        Asset asset = new Asset();
+        asset.mimeType = context.getMimeType(name);
+        asset.etag = etag;
+        asset.lastModified = time > 0 ? time : System.currentTimeMillis();
+
+        if (content.length <= MAX_MEMORY_ASSET) {
+            asset.content = content;
+            asset.length = content.length;
+
+            if (FilterControl.isCompressibleFile(name)) {
+                byte[] gzipContent = compress(content);
+                if (gzipContent.length < content.length) {
+                    asset.gzip = createGzipAsset(asset);
+                    asset.gzip.content = gzipContent;
+                    asset.gzip.length = gzipContent.length;
+                }
+            }
+            return asset;
+        }
+
+        File file = createTempFile(tempDir);
+        try (OutputStream fileStream = new FileOutputStream(file)) {
+            fileStream.write(content);
+        }
+        mapFile(asset, file);
+        mapGzipFile(tempDir, name, asset);
+        return asset;
+    }
+
+    // Large compressible assets get their gzip content compressed once to a file next to the extracted one
+    private void mapGzipFile(File tempDir, String name, Asset asset) throws IOException {
+        if (!FilterControl.isCompressibleFile(name)) {
+            return;
+        }
+
+        File gzipFile = createTempFile(tempDir);
+        try (InputStream fileStream = new FileInputStream(asset.file);
+             OutputStream gzipStream = createGzipStream(new FileOutputStream(gzipFile))) {
+            IOUtils.copy(fileStream, gzipStream);
+        }
+
+        if (gzipFile.length() >= asset.length) {
+            gzipFile.delete();
+            return;
+        }
+        asset.gzip = createGzipAsset(asset);
+        mapFile(asset.gzip, gzipFile);
+    }
+
+    private Asset createGzipAsset(Asset asset) {
+        Asset gzipAsset = new Asset();
+        gzipAsset.mimeType = asset.mimeType;
+        gzipAsset.etag = asset.etag.substring(0, asset.etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+        gzipAsset.lastModified = asset.lastModified;
+        return gzipAsset;
+    }
+
+    private File createTempFile(File tempDir) throws IOException {
+        File file = File.createTempFile("jsmart-asset-", null, tempDir);
+        file.deleteOnExit();
+        return file;
+    }
+
+    private void deleteFile(Asset asset) {
+        if (asset.file != null && !asset.file.delete()) {
+            LOGGER.log(Level.WARNING, "Could not delete the JSmart asset file [" + asset.file + "]");
+        }
+    }
+
+    // Large assets are extracted once to the temporary directory and memory mapped
+    private void mapFile(Asset asset, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            asset.file = file;
+            asset.length = channel.size();
+            asset.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asReadOnlyBuffer();
+        }
+    }
+
+    private byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream(content.length / 2);
+        GZIPOutputStream gzipStream = createGzipStream(byteStream);
+        gzipStream.write(content);
+        gzipStream.close();
+        return byteStream.toByteArray();
+    }
+
+    private GZIPOutputStream createGzipStream(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, BUFFER_SIZE) {{
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }};
+    }
+
+    private static ByteBuffer slice(ByteBuffer content, long start, long length) {
+        ByteBuffer region = content.duplicate();
+        region.position((int) start);
+        region.limit((int) (start + length));
+        return region.slice();
+    }
+
+    private static class Asset {
+
+        private String mimeType;
+
+        private String etag;
+
+        private long lastModified;
+
+        private long length;
+
+        private byte[] content;
+
+        private File file;
+
+        private ByteBuffer mapped;
+
+        // Gzip representation with its own entity tag, null if the asset is not worth compressing
+        private Asset gzip;
+    }
+
+}
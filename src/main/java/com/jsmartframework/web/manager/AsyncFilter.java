@@ -61,11 +61,11 @@ public class AsyncFilter implements Filter {
         } catch (Throwable thrown) {
             throwable = thrown;
             thrown.printStackTrace();
+        } finally {
+            // Close bean context based on current thread instance
+            WebContext.closeCurrentInstance();
         }
 
-        // Close bean context based on current thread instance
-        WebContext.closeCurrentInstance();
-
         // Case internal server error
         if (throwable != null) {
             if (throwable instanceof IOException) {
@@ -20,15 +20,16 @@ package com.jsmartframework.web.manager;
 
 import static com.jsmartframework.web.config.Config.CONFIG;
 import static com.jsmartframework.web.config.Constants.REQUEST_EXPOSE_VARS_ATTR;
+import static com.jsmartframework.web.config.Constants.REQUEST_LAZY_BEANS_ATTR;
 import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
 import static com.jsmartframework.web.manager.ExpressionHandler.EL_PATTERN;
-import static com.jsmartframework.web.manager.ExpressionHandler.ID_PATTERN;
 import static com.jsmartframework.web.manager.ExpressionHandler.EL_PATTERN_FORMAT;
 import static com.jsmartframework.web.manager.ExpressionHandler.BEAN_METHOD_NAME_FORMAT;
-import static com.jsmartframework.web.manager.ExpressionHandler.JSP_PATTERN;
 import static com.jsmartframework.web.manager.TagHandler.J_TAG_PATTERN;
 import static com.jsmartframework.web.manager.BeanHelper.HELPER;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.jsmartframework.web.adapter.CsrfAdapter;
 import com.jsmartframework.web.annotation.Arg;
 import com.jsmartframework.web.annotation.AsyncBean;
@@ -38,10 +39,6 @@ import com.jsmartframework.web.annotation.AuthType;
 import com.jsmartframework.web.annotation.ExecuteAccess;
 import com.jsmartframework.web.annotation.ExposeVar;
 import com.jsmartframework.web.annotation.Function;
-import com.jsmartframework.web.annotation.PostAction;
-import com.jsmartframework.web.annotation.PostSubmit;
-import com.jsmartframework.web.annotation.PreAction;
-import com.jsmartframework.web.annotation.PreSubmit;
 import com.jsmartframework.web.annotation.ProduceType;
 import com.jsmartframework.web.annotation.QueryParam;
 import com.jsmartframework.web.annotation.RequestPath;
@@ -59,7 +56,6 @@ import com.jsmartframework.web.listener.WebAsyncListener;
 import com.jsmartframework.web.util.WebUtils;
 
 import org.apache.commons.lang.StringUtils;
-import org.reflections.Reflections;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
@@ -69,6 +65,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -81,7 +80,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -114,11 +112,6 @@ public enum BeanHandler {
 
     private static final Logger LOGGER = Logger.getLogger(BeanHandler.class.getPackage().getName());
 
-    private static final Pattern INCLUDE_PATTERN = Pattern.compile("<%@*.include.*file=\"(.*)\".*%>");
-
-    private static final Pattern HANDLER_EL_PATTERN = Pattern.compile(EL_PATTERN.pattern()
-            + "|" + INCLUDE_PATTERN.pattern() + "|" + ID_PATTERN.pattern() + "|" + JSP_PATTERN.pattern());
-
     private static final Pattern SPRING_VALUE_PATTERN = Pattern.compile("[\\$,\\{,\\}]*");
 
     Map<String, Class<?>> webBeans = new ConcurrentHashMap<>();
@@ -153,16 +146,50 @@ public enum BeanHandler {
 
     private Map<String, JspPageBean> jspPageBeans = new ConcurrentHashMap<>();
 
+    private Map<Class<?>, InjectionPlan> injectionPlans = new ConcurrentHashMap<>();
+
+    private Map<Class<?>, InjectionPlan> authInjectionPlans = new ConcurrentHashMap<>();
+
+    // Weak keys are compared by identity, so beans overriding equals are still told apart
+    private Cache<Object, Boolean> injectedObjects = CacheBuilder.newBuilder().weakKeys().build();
+
     private InitialContext initialContext;
 
     private ApplicationContext springContext;
 
-    void init(ServletContext context) {
-        checkWebXmlPath(context);
-        initJndiMapping();
-        initAnnotatedBeans();
-        initForwardPaths(context);
-        initJspPageBeans(context);
+    // JSP pages are mapped after the beans, actions and forward paths they refer to and EJBs are listed
+    // from the container thread which owns the java:comp namespace
+    void init(final ServletContext context, BootstrapScheduler scheduler) {
+        scheduler.addPhase("web-xml", new Runnable() {
+            @Override
+            public void run() {
+                checkWebXmlPath(context);
+            }
+        });
+        scheduler.addCallerPhase("jndi-mapping", new Runnable() {
+            @Override
+            public void run() {
+                initJndiMapping();
+            }
+        });
+        scheduler.addPhase("annotated-beans", new Runnable() {
+            @Override
+            public void run() {
+                initAnnotatedBeans();
+            }
+        });
+        scheduler.addPhase("forward-paths", new Runnable() {
+            @Override
+            public void run() {
+                initForwardPaths(context);
+            }
+        });
+        scheduler.addPhase("jsp-page-beans", new Runnable() {
+            @Override
+            public void run() {
+                initJspPageBeans(context);
+            }
+        }, "annotated-beans", "forward-paths");
     }
 
     void destroy(ServletContext context) {
@@ -184,6 +211,9 @@ public enum BeanHandler {
             beanMethodFunctions.clear();
             annotatedActions.clear();
             jndiMapping.clear();
+            injectionPlans.clear();
+            authInjectionPlans.clear();
+            injectedObjects.invalidateAll();
             initialContext = null;
             springContext = null;
         } catch (Exception ex) {
@@ -193,71 +223,51 @@ public enum BeanHandler {
 
     void setSpringContext(ApplicationContext springContext) {
         this.springContext = springContext;
+        this.injectionPlans.clear();
+        this.authInjectionPlans.clear();
     }
 
     @Deprecated
     boolean executePreSubmit(Object bean, String action) {
-        for (Method method : HELPER.getPreSubmitMethods(bean.getClass())) {
-            for (String onAction : method.getAnnotation(PreSubmit.class).onActions()) {
-                try {
-                    if (action.equalsIgnoreCase(onAction)) {
-                        Boolean result = (Boolean) method.invoke(bean, null);
-                        return result != null ? result : true;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-        return true;
+        return invokePreAction(bean, HELPER.getPreSubmitAction(bean.getClass(), action));
     }
 
     boolean executePreAction(Object bean, String action) {
-        for (Method method : HELPER.getPreActionMethods(bean.getClass())) {
-            for (String onAction : method.getAnnotation(PreAction.class).onActions()) {
-                try {
-                    if (action.equalsIgnoreCase(onAction)) {
-                        Boolean result = (Boolean) method.invoke(bean, null);
-                        return result != null ? result : true;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
-            }
-        }
-        return true;
+        return invokePreAction(bean, HELPER.getPreActionAction(bean.getClass(), action));
     }
 
     @Deprecated
     void executePostSubmit(Object bean, String action) {
-        for (Method method : HELPER.getPostSubmitMethods(bean.getClass())) {
-            for (String onAction : method.getAnnotation(PostSubmit.class).onActions()) {
-                try {
-                    if (action.equalsIgnoreCase(onAction)) {
-                        method.invoke(bean, null);
-                        return;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+        invokePostAction(bean, HELPER.getPostSubmitAction(bean.getClass(), action));
+    }
+
+    void executePostAction(Object bean, String action) {
+        invokePostAction(bean, HELPER.getPostActionAction(bean.getClass(), action));
+    }
+
+    private boolean invokePreAction(Object bean, MethodHandle handle) {
+        if (handle != null) {
+            try {
+                Boolean result = (Boolean) (Object) handle.invokeExact(bean);
+                return result != null ? result : true;
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                ex.printStackTrace();
             }
-            return;
         }
+        return true;
     }
 
-    void executePostAction(Object bean, String action) {
-        for (Method method : HELPER.getPostActionMethods(bean.getClass())) {
-            for (String onAction : method.getAnnotation(PostAction.class).onActions()) {
-                try {
-                    if (action.equalsIgnoreCase(onAction)) {
-                        method.invoke(bean, null);
-                        return;
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+    private void invokePostAction(Object bean, MethodHandle handle) {
+        if (handle != null) {
+            try {
+                Object ignored = (Object) handle.invokeExact(bean);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                ex.printStackTrace();
             }
-            return;
         }
     }
 
@@ -372,6 +382,52 @@ public enum BeanHandler {
         }
     }
 
+    // Stateless pages creating session beans must create the session before the response gets committed
+    boolean isSessionRequired(String path) {
+        JspPageBean jspPageBean = jspPageBeans.get(path);
+        if (jspPageBean != null) {
+            for (String name : jspPageBean.getBeanNames()) {
+                Class<?> clazz = webBeans.get(name);
+                if (clazz != null && clazz.getAnnotation(WebBean.class).scope() == ScopeType.SESSION) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Page beans are only created once resolved by an expression, see LazyBeanELResolver. Beans holding
+    // functions or exposed vars are never referenced by the page, so they are created right away
+    void registerLazyBeans(String path) throws Exception {
+        JspPageBean jspPageBean = jspPageBeans.get(path);
+        if (jspPageBean != null) {
+            Set<String> lazyBeans = new HashSet<>(jspPageBean.getBeanNames());
+            lazyBeans.removeAll(jspPageBean.getEagerBeanNames());
+            WebContext.getRequest().setAttribute(REQUEST_LAZY_BEANS_ATTR, lazyBeans);
+
+            for (String name : jspPageBean.getEagerBeanNames()) {
+                instantiateBean(name, null);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    Object resolveLazyBean(String name) {
+        HttpServletRequest request = WebContext.getRequest();
+        if (request == null) {
+            return null;
+        }
+        Set<String> lazyBeans = (Set<String>) request.getAttribute(REQUEST_LAZY_BEANS_ATTR);
+        if (lazyBeans == null || !lazyBeans.remove(name)) {
+            return null;
+        }
+        try {
+            return instantiateBean(name, null);
+        } catch (Exception ex) {
+            throw new RuntimeException("WebBean [" + name + "] could not be instantiated", ex);
+        }
+    }
+
     private Object instantiateBean(String name, Map<String, String> expressions) throws Exception {
         Object bean = null;
         ServletContext context = WebContext.getApplication();
@@ -384,12 +440,10 @@ public enum BeanHandler {
             return bean;
         }
 
-        synchronized (session) {
-            if (session.getAttribute(name) != null) {
-                bean = session.getAttribute(name);
-                executeInjection(bean);
-                return bean;
-            }
+        if (session != null && session.getAttribute(name) != null) {
+            bean = session.getAttribute(name);
+            executeInjection(bean);
+            return bean;
         }
 
         if (context.getAttribute(name) != null) {
@@ -400,17 +454,28 @@ public enum BeanHandler {
 
         if (webBeans.containsKey(name)) {
             Class<?> clazz = webBeans.get(name);
-            bean = clazz.newInstance();
-
             WebBean webBean = clazz.getAnnotation(WebBean.class);
+
             if (webBean.scope().equals(ScopeType.REQUEST)) {
+                bean = clazz.newInstance();
                 request.setAttribute(name, bean);
 
             } else if (webBean.scope().equals(ScopeType.SESSION)) {
-                synchronized (session) {
+                // Stateless requests only create the session once a session bean is needed
+                session = WebContext.getSession(true);
+
+                // Only requests creating the same bean on the same session wait for each other
+                synchronized (SessionLocks.getLock(session, name)) {
+                    if (session.getAttribute(name) != null) {
+                        bean = session.getAttribute(name);
+                        executeInjection(bean);
+                        return bean;
+                    }
+                    bean = clazz.newInstance();
                     session.setAttribute(name, bean);
                 }
             } else if (webBean.scope().equals(ScopeType.APPLICATION)) {
+                bean = clazz.newInstance();
                 context.setAttribute(name, bean);
 
             } else {
@@ -436,80 +501,190 @@ public enum BeanHandler {
 
     void executeInjection(Object object) {
         try {
-            HttpSession session = WebContext.getSession();
-            HttpServletRequest request = WebContext.getRequest();
+            InjectionPlan plan = getInjectionPlan(object.getClass());
 
-            for (Field field : HELPER.getBeanFields(object.getClass())) {
-                if (field.getAnnotations().length == 0) {
-                    continue;
+            // Dependencies bound to the instance are skipped when a scoped bean is fetched again
+            boolean injected = plan.hasInstanceInjections() && injectedObjects.getIfPresent(object) != null;
+
+            for (FieldInjection injection : plan.getInjections()) {
+                if (!injected || !injection.isInstanceBound()) {
+                    executeInjection(object, injection);
                 }
+            }
+            if (plan.hasInstanceInjections() && !injected) {
+                injectedObjects.put(object, Boolean.TRUE);
+            }
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Injection on object [" + object + "] failed", ex);
+        }
+    }
 
-                if (field.isAnnotationPresent(Inject.class)) {
-                    WebBean webBean = field.getType().getAnnotation(WebBean.class);
-                    if (webBean != null) {
-                        field.setAccessible(true);
-                        field.set(object, instantiateBean(HELPER.getClassName(webBean, field.getType()), null));
-                        continue;
-                    }
+    private void executeInjection(Object object, FieldInjection injection) throws Throwable {
+        switch (injection.getType()) {
+            case WEB_BEAN:
+                injection.set(object, instantiateBean(injection.getName(), null));
+                break;
 
-                    AuthBean authBean = field.getType().getAnnotation(AuthBean.class);
-                    if (authBean != null) {
-                        field.setAccessible(true);
-                        if (authBean.type() == AuthType.SESSION) {
-                            field.set(object, instantiateAuthBean(HELPER.getClassName(authBean, field.getType()), session));
+            case AUTH_SESSION_BEAN:
+                injection.set(object, instantiateAuthBean(injection.getName(), WebContext.getSession(true)));
+                break;
 
-                        } else if (authBean.type() == AuthType.REQUEST) {
-                            field.set(object, instantiateAuthBean(HELPER.getClassName(authBean, field.getType()), request));
-                        }
-                        continue;
-                    }
+            case AUTH_REQUEST_BEAN:
+                injection.set(object, instantiateAuthBean(injection.getName(), WebContext.getRequest()));
+                break;
+
+            case QUERY_PARAM:
+                String paramValue = WebContext.getRequest().getParameter(injection.getName());
+                if (paramValue != null) {
+                    injection.set(object, EXPRESSIONS.decodeUrl(paramValue));
                 }
+                break;
 
-                // Inject URL Parameters
-                if (field.isAnnotationPresent(QueryParam.class)) {
-                    QueryParam queryParam = field.getAnnotation(QueryParam.class);
-                    String paramValue = request.getParameter(queryParam.value());
+            case EXPOSE_VAR:
+                Map<?, ?> varMapping = HELPER.getExposeVarMapping(injection.getField());
+                if (varMapping != null) {
+                    injection.set(object, varMapping);
+                }
+                break;
 
-                    if (paramValue != null) {
-                        field.setAccessible(true);
-                        field.set(object, ExpressionHandler.EXPRESSIONS.decodeUrl(paramValue));
-                    }
+            case JNDI:
+            case SPRING_BEAN:
+            case SPRING_VALUE:
+                injection.set(object, getDependency(injection));
+                break;
+        }
+    }
+
+    // Spring singletons and properties are resolved once per field and kept on the plan. JNDI references are
+    // looked up once per bean instance only, as stateful EJBs hand out a new instance on each lookup
+    private Object getDependency(FieldInjection injection) throws Exception {
+        Object dependency = injection.getDependency();
+        if (dependency != null) {
+            return dependency;
+        }
+
+        Class<?> type = injection.getField().getType();
+        if (injection.getType() == InjectionType.JNDI) {
+            dependency = initialContext.lookup(injection.getName());
+
+        } else if (injection.getType() == InjectionType.SPRING_BEAN) {
+            dependency = springContext.getBean(type);
+
+        } else {
+            dependency = springContext.getEnvironment().getProperty(injection.getName(), type);
+        }
+
+        if (injection.isInstanceBound() && injection.getType() != InjectionType.JNDI) {
+            injection.setDependency(dependency);
+        }
+        return dependency;
+    }
+
+    private InjectionPlan getInjectionPlan(Class<?> clazz) {
+        InjectionPlan plan = injectionPlans.get(clazz);
+        if (plan == null) {
+            injectionPlans.put(clazz, plan = createInjectionPlan(clazz, false));
+        }
+        return plan;
+    }
+
+    private InjectionPlan getAuthInjectionPlan(Class<?> clazz) {
+        InjectionPlan plan = authInjectionPlans.get(clazz);
+        if (plan == null) {
+            authInjectionPlans.put(clazz, plan = createInjectionPlan(clazz, true));
+        }
+        return plan;
+    }
+
+    // Resolve once per class which fields get injected and how, in the field order used before
+    private InjectionPlan createInjectionPlan(Class<?> clazz, boolean authPlan) {
+        List<FieldInjection> injections = new ArrayList<>();
+
+        for (Field field : HELPER.getBeanFields(clazz)) {
+            if (field.getAnnotations().length == 0) {
+                continue;
+            }
+
+            if (authPlan) {
+                if (field.isAnnotationPresent(AuthField.class)) {
+                    String cookieName = field.getAnnotation(AuthField.class).value();
+                    addInjection(injections, field, InjectionType.AUTH_FIELD, cookieName, false);
                     continue;
                 }
 
-                // Inject VarMapping case present
-                if (field.isAnnotationPresent(ExposeVar.class)) {
-                    Map<?, ?> varMapping = HELPER.getExposeVarMapping(field);
-                    if (varMapping != null) {
-                        field.setAccessible(true);
-                        field.set(object, varMapping);
-                    }
+            } else if (field.isAnnotationPresent(Inject.class)) {
+                WebBean webBean = field.getType().getAnnotation(WebBean.class);
+                if (webBean != null) {
+                    addInjection(injections, field, InjectionType.WEB_BEAN, HELPER.getClassName(webBean, field.getType()), false);
+                    continue;
                 }
 
-                // Inject dependencies
-                if (initialContext != null && jndiMapping.containsKey(field.getType())) {
-                    field.setAccessible(true);
-                    field.set(object, initialContext.lookup(jndiMapping.get(field.getType())));
+                AuthBean authBean = field.getType().getAnnotation(AuthBean.class);
+                if (authBean != null) {
+                    String authName = HELPER.getClassName(authBean, field.getType());
+                    if (authBean.type() == AuthType.SESSION) {
+                        addInjection(injections, field, InjectionType.AUTH_SESSION_BEAN, authName, false);
+
+                    } else if (authBean.type() == AuthType.REQUEST) {
+                        addInjection(injections, field, InjectionType.AUTH_REQUEST_BEAN, authName, false);
+                    }
                     continue;
                 }
+            }
 
-                if (springContext != null) {
-                    String beanName = HELPER.getClassName(field.getType().getSimpleName());
-                    if (springContext.containsBean(beanName) || field.isAnnotationPresent(Qualifier.class)) {
-                        field.setAccessible(true);
-                        field.set(object, springContext.getBean(field.getType()));
+            if (!authPlan && field.isAnnotationPresent(QueryParam.class)) {
+                String paramName = field.getAnnotation(QueryParam.class).value();
+                addInjection(injections, field, InjectionType.QUERY_PARAM, paramName, false);
+                continue;
+            }
 
-                    } else if (field.isAnnotationPresent(Value.class)) {
-                        String propertyName = field.getAnnotation(Value.class).value();
-                        propertyName = SPRING_VALUE_PATTERN.matcher(propertyName).replaceAll("");
-                        field.setAccessible(true);
-                        field.set(object, springContext.getEnvironment().getProperty(propertyName, field.getType()));
-                    }
+            if (field.isAnnotationPresent(ExposeVar.class)) {
+                addInjection(injections, field, InjectionType.EXPOSE_VAR, null, false);
+            }
+
+            if (initialContext != null && jndiMapping.containsKey(field.getType())) {
+                addInjection(injections, field, InjectionType.JNDI, jndiMapping.get(field.getType()), true);
+                continue;
+            }
+
+            if (springContext != null) {
+                String beanName = HELPER.getClassName(field.getType().getSimpleName());
+                if (springContext.containsBean(beanName) || field.isAnnotationPresent(Qualifier.class)) {
+                    addInjection(injections, field, InjectionType.SPRING_BEAN, null, isSpringSingleton(field.getType()));
+
+                } else if (field.isAnnotationPresent(Value.class)) {
+                    String propertyName = field.getAnnotation(Value.class).value();
+                    propertyName = SPRING_VALUE_PATTERN.matcher(propertyName).replaceAll("");
+                    addInjection(injections, field, InjectionType.SPRING_VALUE, propertyName, true);
                 }
             }
-        } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Injection on object [" + object + "] failed", ex);
         }
+        return new InjectionPlan(injections.toArray(new FieldInjection[injections.size()]));
+    }
+
+    private void addInjection(List<FieldInjection> injections, Field field, InjectionType type, String name,
+                              boolean instanceBound) {
+        try {
+            field.setAccessible(true);
+            MethodHandle setter = MethodHandles.lookup().unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            injections.add(new FieldInjection(type, field, setter, name, instanceBound));
+
+        } catch (IllegalAccessException ex) {
+            LOGGER.log(Level.SEVERE, "Field [" + field + "] cannot be injected: " + ex.getMessage());
+        }
+    }
+
+    private boolean isSpringSingleton(Class<?> type) {
+        String[] beanNames = springContext.getBeanNamesForType(type);
+        for (String beanName : beanNames) {
+            if (!springContext.isSingleton(beanName)) {
+                return false;
+            }
+        }
+        return beanNames.length > 0;
     }
 
     void finalizeAsyncBean(Object bean, HttpServletRequest request) {
@@ -541,20 +716,18 @@ public enum BeanHandler {
     }
 
     void finalizeBeans(HttpSession session) {
-        synchronized (session) {
-            List<String> names = Collections.list(session.getAttributeNames());
+        List<String> names = Collections.list(session.getAttributeNames());
 
-            for (String name : names) {
-                Object bean = session.getAttribute(name);
-                if (bean == null) {
-                    continue;
-                }
-                if (bean.getClass().isAnnotationPresent(WebBean.class)) {
-                    finalizeWebBean(bean, session);
+        for (String name : names) {
+            Object bean = session.getAttribute(name);
+            if (bean == null) {
+                continue;
+            }
+            if (bean.getClass().isAnnotationPresent(WebBean.class)) {
+                finalizeWebBean(bean, session);
 
-                } else if (bean.getClass().isAnnotationPresent(AuthBean.class)) {
-                    finalizeAuthBean(bean, session);
-                }
+            } else if (bean.getClass().isAnnotationPresent(AuthBean.class)) {
+                finalizeAuthBean(bean, session);
             }
         }
     }
@@ -663,8 +836,12 @@ public enum BeanHandler {
     }
 
     private Object instantiateAuthBean(String name, HttpSession session) {
-        synchronized (session) {
-            Object bean = session.getAttribute(name);
+        Object bean = session.getAttribute(name);
+        if (bean != null) {
+            return bean;
+        }
+        synchronized (SessionLocks.getLock(session, name)) {
+            bean = session.getAttribute(name);
             if (bean != null) {
                 return bean;
             }
@@ -686,6 +863,14 @@ public enum BeanHandler {
         }
     }
 
+    boolean hasRequestAuthBean() {
+        for (Class<?> authClazz : authBeans.values()) {
+            // We must have only one @AuthBean mapped
+            return authClazz.getAnnotation(AuthBean.class).type() == AuthType.REQUEST;
+        }
+        return false;
+    }
+
     private Object instantiateAuthBean(String name, HttpServletRequest request) {
         Object bean = request.getAttribute(name);
         if (bean != null) {
@@ -702,56 +887,26 @@ public enum BeanHandler {
             bean = authBeans.get(name).newInstance();
             AuthBean authBean = authBeans.get(name).getAnnotation(AuthBean.class);
 
-            for (Field field : HELPER.getBeanFields(bean.getClass())) {
-                if (field.getAnnotations().length == 0) {
-                    continue;
-                }
+            for (FieldInjection injection : getAuthInjectionPlan(bean.getClass()).getInjections()) {
 
                 // Set authentication cookies when initializing @AuthBean
-                if (request != null && field.isAnnotationPresent(AuthField.class)) {
-                    AuthField authField = field.getAnnotation(AuthField.class);
-                    field.setAccessible(true);
-                    String fieldValue = WebUtils.getCookie(request, authField.value());
-
-                    if (fieldValue != null) {
-                        fieldValue = AuthEncrypter.decrypt(request, authBean.secretKey(), fieldValue);
-                    }
-                    field.set(bean, fieldValue);
-                    continue;
-                }
-
-                // Inject VarMapping case present
-                if (field.isAnnotationPresent(ExposeVar.class)) {
-                    Map<?, ?> varMapping = HELPER.getExposeVarMapping(field);
-                    if (varMapping != null) {
-                        field.setAccessible(true);
-                        field.set(bean, varMapping);
+                if (injection.getType() == InjectionType.AUTH_FIELD) {
+                    if (request != null) {
+                        String fieldValue = WebUtils.getCookie(request, injection.getName());
+                        if (fieldValue != null) {
+                            fieldValue = AuthEncrypter.decrypt(request, authBean.secretKey(), fieldValue);
+                        }
+                        injection.set(bean, fieldValue);
                     }
-                }
-
-                if (initialContext != null && jndiMapping.containsKey(field.getType())) {
-                    field.setAccessible(true);
-                    field.set(bean, initialContext.lookup(jndiMapping.get(field.getType())));
                     continue;
                 }
-
-                if (springContext != null) {
-                    String beanName = HELPER.getClassName(field.getType().getSimpleName());
-                    if (springContext.containsBean(beanName) || field.isAnnotationPresent(Qualifier.class)) {
-                        field.setAccessible(true);
-                        field.set(bean, springContext.getBean(field.getType()));
-
-                    } else if (field.isAnnotationPresent(Value.class)) {
-                        String propertyName = field.getAnnotation(Value.class).value();
-                        propertyName = SPRING_VALUE_PATTERN.matcher(propertyName).replaceAll("");
-                        field.setAccessible(true);
-                        field.set(bean, springContext.getEnvironment().getProperty(propertyName, field.getType()));
-                    }
-                }
+                executeInjection(bean, injection);
             }
             executePostConstruct(bean);
 
-        } catch (Exception ex) {
+        } catch (Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
             LOGGER.log(Level.SEVERE, "Injection on AuthBean [" + bean + "] failed: " + ex.getMessage());
         }
         return bean;
@@ -844,9 +999,13 @@ public enum BeanHandler {
             authBean = authBeans.get(name).getAnnotation(AuthBean.class);
 
             if (authBean.type() == AuthType.SESSION) {
+                // Stateless requests may have no session or a session without the auth bean, which is only
+                // created once touched, so in both cases the user is not authenticated
                 HttpSession session = WebContext.getSession();
-                synchronized (session) {
+                if (session != null && session.getAttribute(name) != null) {
                     authenticated = checkAuthentication(session.getAttribute(name));
+                } else {
+                    authenticated = !WebContext.isStateless();
                 }
             } else if (authBean.type() == AuthType.REQUEST) {
                 HttpServletRequest request = WebContext.getRequest();
@@ -946,9 +1105,10 @@ public enum BeanHandler {
 
             if (authBean.type() == AuthType.SESSION) {
                 HttpSession session = WebContext.getSession();
-                synchronized (session) {
-                    return getUserAuthorizationAccess(session.getAttribute(name), request);
+                if (session == null || session.getAttribute(name) == null) {
+                    return Collections.emptyList();
                 }
+                return getUserAuthorizationAccess(session.getAttribute(name), request);
             } else if (authBean.type() == AuthType.REQUEST) {
                 return getUserAuthorizationAccess(request.getAttribute(name), request);
             }
@@ -1072,21 +1232,23 @@ public enum BeanHandler {
             return;
         }
 
-        Object[] packages = CONFIG.getContent().getPackageScan().split(",");
-        Reflections reflections = new Reflections(packages);
+        long start = System.currentTimeMillis();
+        String[] packages = CONFIG.getContent().getPackageScan().split(",");
+        AnnotationIndex index = AnnotationIndex.create(packages);
 
-        initAnnotatedWebBeans(reflections);
-        initAnnotatedAuthBeans(reflections);
-        initAnnotatedRequestPaths(reflections);
-        initAnnotatedAsyncBeans(reflections);
-        initAnnotatedWebServlets(reflections);
-        initAnnotatedWebFilters(reflections);
-        initAnnotatedWebListeners(reflections);
-        initAnnotatedWebSecurities(reflections);
+        initAnnotatedWebBeans(index);
+        initAnnotatedAuthBeans(index);
+        initAnnotatedRequestPaths(index);
+        initAnnotatedAsyncBeans(index);
+        initAnnotatedWebServlets(index);
+        initAnnotatedWebFilters(index);
+        initAnnotatedWebListeners(index);
+        initAnnotatedWebSecurities(index);
+        LOGGER.log(Level.INFO, "Annotated classes mapped in [" + (System.currentTimeMillis() - start) + "] ms");
     }
 
-    private void initAnnotatedWebBeans(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(WebBean.class);
+    private void initAnnotatedWebBeans(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(WebBean.class);
 
         for (Class<?> clazz : annotations) {
             WebBean bean = clazz.getAnnotation(WebBean.class);
@@ -1150,8 +1312,8 @@ public enum BeanHandler {
         }
     }
 
-    private void initAnnotatedAuthBeans(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(AuthBean.class);
+    private void initAnnotatedAuthBeans(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(AuthBean.class);
 
         for (Class<?> clazz : annotations) {
             AuthBean authBean = clazz.getAnnotation(AuthBean.class);
@@ -1203,8 +1365,8 @@ public enum BeanHandler {
         checkWebBeanConstraint(annotations, "@AuthBean");
     }
 
-    private void initAnnotatedRequestPaths(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(RequestPath.class);
+    private void initAnnotatedRequestPaths(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(RequestPath.class);
 
         for (Class<?> clazz : annotations) {
             RequestPath requestPath = clazz.getAnnotation(RequestPath.class);
@@ -1239,8 +1401,8 @@ public enum BeanHandler {
         checkAuthBeanConstraint(annotations, "@RequestPath");
     }
 
-    private void initAnnotatedAsyncBeans(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(AsyncBean.class);
+    private void initAnnotatedAsyncBeans(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(AsyncBean.class);
 
         for (Class<?> clazz : annotations) {
             AsyncBean asyncBean = clazz.getAnnotation(AsyncBean.class);
@@ -1266,8 +1428,8 @@ public enum BeanHandler {
         checkRequestPathConstraint(annotations, "@AsyncBean");
     }
 
-    private void initAnnotatedWebServlets(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(WebServlet.class);
+    private void initAnnotatedWebServlets(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(WebServlet.class);
 
         for (Class<?> clazz : annotations) {
             WebServlet servlet = clazz.getAnnotation(WebServlet.class);
@@ -1292,8 +1454,8 @@ public enum BeanHandler {
         checkAsyncBeanConstraint(annotations, "@WebServlet");
     }
 
-    private void initAnnotatedWebFilters(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(WebFilter.class);
+    private void initAnnotatedWebFilters(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(WebFilter.class);
 
         for (Class<?> clazz : annotations) {
             WebFilter filter = clazz.getAnnotation(WebFilter.class);
@@ -1318,8 +1480,8 @@ public enum BeanHandler {
         checkAsyncBeanConstraint(annotations, "@WebFilter");
     }
 
-    private void initAnnotatedWebListeners(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(WebListener.class);
+    private void initAnnotatedWebListeners(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(WebListener.class);
 
         for (Class<?> clazz : annotations) {
             try {
@@ -1362,8 +1524,8 @@ public enum BeanHandler {
         checkAsyncBeanConstraint(annotations, "@WebListener");
     }
 
-    private void initAnnotatedWebSecurities(Reflections reflections) {
-        Set<Class<?>> annotations = reflections.getTypesAnnotatedWith(WebSecurity.class);
+    private void initAnnotatedWebSecurities(AnnotationIndex index) {
+        Set<Class<?>> annotations = index.getTypesAnnotatedWith(WebSecurity.class);
 
         for (Class<?> clazz : annotations) {
             try {
@@ -1568,122 +1730,168 @@ public enum BeanHandler {
     }
 
     private void initJspPageBeans(ServletContext context) {
+        long start = System.currentTimeMillis();
+        Map<String, Set<String>> jspPages = JspPageIndex.load();
+        Set<String> indexedPages = new HashSet<>();
+        Set<String> scannedPages = new HashSet<>();
+
         for (UrlPattern urlPattern : CONFIG.getContent().getUrlPatterns()) {
 
             String path = HELPER.getCleanPath(urlPattern.getUrl());
             JspPageBean jspPageBean = new JspPageBean();
 
-            readJspPageResource(context, path, jspPageBean);
+            readJspPageResource(context, getForwardPath(path), jspPageBean, jspPages, indexedPages, scannedPages,
+                    new HashSet<String>());
 
             // Include the mapped bean containing function into jspPageBeans
             // so they can be initialized properly
             for (AnnotatedFunction annotatedFunction : getAnnotatedFunctions(path)) {
-                jspPageBean.addBeanName(annotatedFunction.getClassName());
+                jspPageBean.addEagerBeanName(annotatedFunction.getClassName());
             }
 
             // Include the mapped bean containing exposed vars into jspPageBeans
             for (Class<?> clazz : HELPER.getExposeVarByPath(path)) {
-                jspPageBean.addBeanName(HELPER.getBeanName(clazz));
+                jspPageBean.addEagerBeanName(HELPER.getBeanName(clazz));
             }
             jspPageBeans.put(path, jspPageBean);
         }
+        LOGGER.log(Level.INFO, "JSP pages beans mapped in [" + (System.currentTimeMillis() - start) + "] ms using ["
+                + indexedPages.size() + "] indexed and [" + scannedPages.size() + "] scanned pages");
     }
 
-    private void readJspPageResource(ServletContext context, String path, JspPageBean jspPageBean) {
-        InputStream is = context.getResourceAsStream(getForwardPath(path));
+    // Pages missing on build time index or changed after it are scanned and kept for the other pages including them
+    private void readJspPageResource(ServletContext context, String jspPath, JspPageBean jspPageBean,
+                                     Map<String, Set<String>> jspPages, Set<String> indexedPages,
+                                     Set<String> scannedPages, Set<String> visited) {
+        if (jspPath == null || !visited.add(jspPath)) {
+            return;
+        }
 
-        if (is != null) {
-            Scanner fileScanner = new Scanner(is);
-            Set<String> includes = new LinkedHashSet<>();
+        Set<String> references = jspPages.get(jspPath);
+        if (references != null && !scannedPages.contains(jspPath)
+                && JspPageIndex.isStale(references, context.getRealPath(jspPath))) {
+            references = null;
+        }
+        if (references == null) {
+            InputStream is = context.getResourceAsStream(jspPath);
+            if (is == null) {
+                return;
+            }
+            references = JspPageIndex.scan(is, jspPath);
+            jspPages.put(jspPath, references);
+            scannedPages.add(jspPath);
+        } else if (!scannedPages.contains(jspPath)) {
+            indexedPages.add(jspPath);
+        }
 
-            try {
-                String lineScan;
-                while ((lineScan = fileScanner.findWithinHorizon(HANDLER_EL_PATTERN, 0)) != null) {
+        for (String reference : references) {
+            if (reference.startsWith(JspPageIndex.NAME)) {
+                String name = reference.substring(JspPageIndex.NAME.length());
+                if (webBeans.containsKey(name)) {
+                    jspPageBean.addBeanName(name);
+                }
+            } else if (reference.startsWith(JspPageIndex.ID)) {
+                AnnotatedAction annotatedAction = getAnnotatedAction(reference.substring(JspPageIndex.ID.length()));
+                if (annotatedAction != null) {
+                    jspPageBean.addBeanName(annotatedAction.getClassName());
+                }
+            } else if (reference.startsWith(JspPageIndex.INCLUDE)) {
+                // Read include page resources
+                String include = reference.substring(JspPageIndex.INCLUDE.length());
+                readJspPageResource(context, getForwardPath(include), jspPageBean, jspPages, indexedPages, scannedPages,
+                        visited);
+            }
+        }
+    }
 
-                    boolean hasInclude = false;
-                    Matcher matcher = INCLUDE_PATTERN.matcher(lineScan);
+    private enum InjectionType {
+        WEB_BEAN, AUTH_SESSION_BEAN, AUTH_REQUEST_BEAN, AUTH_FIELD, QUERY_PARAM, EXPOSE_VAR, JNDI, SPRING_BEAN, SPRING_VALUE
+    }
 
-                    while (matcher.find()) {
-                        hasInclude = true;
-                        includes.add(matcher.group(1));
-                    }
+    private static class FieldInjection {
 
-                    if (hasInclude) {
-                        continue;
-                    }
+        private final InjectionType type;
 
-                    matcher = ExpressionHandler.EL_PATTERN.matcher(lineScan);
-                    while (matcher.find()) {
-                        for (String name : matcher.group(1).split(Constants.SEPARATOR_REGEX)) {
-                            if (webBeans.containsKey(name.trim())) {
-                                jspPageBean.addBeanName(name.trim());
-                            }
-                        }
-                    }
+        private final Field field;
 
-                    matcher = ExpressionHandler.JSP_PATTERN.matcher(lineScan);
-                    while (matcher.find()) {
-                        for (String name : matcher.group(1).split(Constants.SEPARATOR_REGEX)) {
-                            if (webBeans.containsKey(name.trim())) {
-                                jspPageBean.addBeanName(name.trim());
-                            }
-                        }
-                    }
+        private final MethodHandle setter;
 
-                    matcher = ExpressionHandler.ID_PATTERN.matcher(lineScan);
-                    while (matcher.find()) {
-                        AnnotatedAction annotatedAction = getAnnotatedAction(matcher.group(1));
-                        if (annotatedAction != null) {
-                            jspPageBean.addBeanName(annotatedAction.getClassName());
-                        }
-                    }
-                }
-            } finally {
-                fileScanner.close();
-            }
+        private final String name;
 
-            // Read include page resources
-            for (String include : includes) {
-                String includeOwner = getForwardPath(path);
-                includeOwner = includeOwner.substring(0, includeOwner.lastIndexOf(Constants.PATH_SEPARATOR) + 1);
+        private final boolean instanceBound;
 
-                include = getRelativeIncludePath(includeOwner, include);
-                readJspPageResource(context, include, jspPageBean);
-            }
+        private volatile Object dependency;
+
+        public FieldInjection(InjectionType type, Field field, MethodHandle setter, String name, boolean instanceBound) {
+            this.type = type;
+            this.field = field;
+            this.setter = setter;
+            this.name = name;
+            this.instanceBound = instanceBound;
+        }
+
+        public InjectionType getType() {
+            return type;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isInstanceBound() {
+            return instanceBound;
+        }
+
+        public Object getDependency() {
+            return dependency;
+        }
+
+        public void setDependency(Object dependency) {
+            this.dependency = dependency;
+        }
+
+        public void set(Object object, Object value) throws Throwable {
+            setter.invokeExact(object, value);
         }
     }
 
-    private String getRelativeIncludePath(String includeOwner, String include) {
-        int index = 0;
-        int pathSeparators = 0;
+    private static class InjectionPlan {
+
+        private final FieldInjection[] injections;
 
-        while (index != -1) {
-            index = include.indexOf(Constants.PREVIOUS_PATH, index);
-            if (index != -1) {
-                pathSeparators++;
-                index += Constants.PREVIOUS_PATH.length();
+        private final boolean instanceInjections;
+
+        public InjectionPlan(FieldInjection[] injections) {
+            this.injections = injections;
+            boolean instanceBound = false;
+            for (FieldInjection injection : injections) {
+                instanceBound |= injection.isInstanceBound();
             }
+            this.instanceInjections = instanceBound;
         }
-        if (pathSeparators != 0) {
-            String[] ownerPath = includeOwner.split(Constants.PATH_SEPARATOR);
-            if (ownerPath.length > pathSeparators) {
-                includeOwner = includeOwner.substring(0, includeOwner.lastIndexOf(ownerPath[ownerPath.length - pathSeparators]));
-            } else {
-                includeOwner = Constants.PATH_SEPARATOR;
-            }
+
+        public FieldInjection[] getInjections() {
+            return injections;
         }
-        if (include.startsWith(Constants.PATH_SEPARATOR)) {
-            include = include.replaceFirst(Constants.PATH_SEPARATOR, "");
+
+        public boolean hasInstanceInjections() {
+            return instanceInjections;
         }
-        return includeOwner + include.replace(Constants.PREVIOUS_PATH, "");
     }
 
     private class JspPageBean {
 
         private Set<String> beanNames;
 
+        private Set<String> eagerBeanNames;
+
         public JspPageBean() {
             this.beanNames = new LinkedHashSet<>();
+            this.eagerBeanNames = new LinkedHashSet<>();
         }
 
         public Set<String> getBeanNames() {
@@ -1693,6 +1901,15 @@ public enum BeanHandler {
         public void addBeanName(String beanName) {
             this.beanNames.add(beanName);
         }
+
+        public Set<String> getEagerBeanNames() {
+            return eagerBeanNames;
+        }
+
+        public void addEagerBeanName(String beanName) {
+            this.beanNames.add(beanName);
+            this.eagerBeanNames.add(beanName);
+        }
     }
 
     public static class AnnotatedFunction {
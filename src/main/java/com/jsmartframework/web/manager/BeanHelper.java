@@ -45,11 +45,15 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -92,13 +96,13 @@ enum BeanHelper {
 
     private Map<Class<?>, Method[]> preDestroyMethods = new ConcurrentHashMap<>();
 
-    private Map<Class<?>, Method[]> preSubmitMethods = new ConcurrentHashMap<>();
+    private Map<Class<?>, Map<String, MethodHandle>> preSubmitActions = new ConcurrentHashMap<>();
 
-    private Map<Class<?>, Method[]> preActionMethods = new ConcurrentHashMap<>();
+    private Map<Class<?>, Map<String, MethodHandle>> preActionActions = new ConcurrentHashMap<>();
 
-    private Map<Class<?>, Method[]> postSubmitMethods = new ConcurrentHashMap<>();
+    private Map<Class<?>, Map<String, MethodHandle>> postSubmitActions = new ConcurrentHashMap<>();
 
-    private Map<Class<?>, Method[]> postActionMethods = new ConcurrentHashMap<>();
+    private Map<Class<?>, Map<String, MethodHandle>> postActionActions = new ConcurrentHashMap<>();
 
     private Map<Class<?>, String[]> unescapeMethods = new ConcurrentHashMap<>();
 
@@ -237,25 +241,26 @@ enum BeanHelper {
     }
 
     @Deprecated
-    Method[] getPostSubmitMethods(Class<?> clazz) {
-        Method[] methods = postSubmitMethods.get(clazz);
-        return methods != null ? methods : new Method[]{};
+    MethodHandle getPostSubmitAction(Class<?> clazz, String action) {
+        return getAction(postSubmitActions, clazz, action);
     }
 
-    Method[] getPostActionMethods(Class<?> clazz) {
-        Method[] methods = postActionMethods.get(clazz);
-        return methods != null ? methods : new Method[]{};
+    MethodHandle getPostActionAction(Class<?> clazz, String action) {
+        return getAction(postActionActions, clazz, action);
     }
 
     @Deprecated
-    Method[] getPreSubmitMethods(Class<?> clazz) {
-        Method[] methods = preSubmitMethods.get(clazz);
-        return methods != null ? methods : new Method[]{};
+    MethodHandle getPreSubmitAction(Class<?> clazz, String action) {
+        return getAction(preSubmitActions, clazz, action);
     }
 
-    Method[] getPreActionMethods(Class<?> clazz) {
-        Method[] methods = preActionMethods.get(clazz);
-        return methods != null ? methods : new Method[]{};
+    MethodHandle getPreActionAction(Class<?> clazz, String action) {
+        return getAction(preActionActions, clazz, action);
+    }
+
+    private MethodHandle getAction(Map<Class<?>, Map<String, MethodHandle>> actions, Class<?> clazz, String action) {
+        Map<String, MethodHandle> classActions = actions.get(clazz);
+        return classActions != null && action != null ? classActions.get(action.toLowerCase(Locale.ROOT)) : null;
     }
 
     Method[] getExecuteAccessMethods(Class<?> clazz) {
@@ -274,10 +279,10 @@ enum BeanHelper {
         if (!beanMethods.containsKey(clazz)) {
             List<Method> postConstructs = new ArrayList<>();
             List<Method> preDestroys = new ArrayList<>();
-            List<Method> postSubmits = new ArrayList<>();
-            List<Method> postActions = new ArrayList<>();
-            List<Method> preSubmits = new ArrayList<>();
-            List<Method> preActions = new ArrayList<>();
+            Map<String, MethodHandle> postSubmits = new HashMap<>();
+            Map<String, MethodHandle> postActions = new HashMap<>();
+            Map<String, MethodHandle> preSubmits = new HashMap<>();
+            Map<String, MethodHandle> preActions = new HashMap<>();
             List<String> unescapes = new ArrayList<>();
             List<Method> executeAccess = new ArrayList<>();
 
@@ -289,16 +294,16 @@ enum BeanHelper {
                     preDestroys.add(method);
                 }
                 if (method.isAnnotationPresent(PostSubmit.class)) {
-                    postSubmits.add(method);
+                    addActions(postSubmits, method, method.getAnnotation(PostSubmit.class).onActions());
                 }
                 if (method.isAnnotationPresent(PostAction.class)) {
-                    postActions.add(method);
+                    addActions(postActions, method, method.getAnnotation(PostAction.class).onActions());
                 }
                 if (method.isAnnotationPresent(PreSubmit.class)) {
-                    preSubmits.add(method);
+                    addActions(preSubmits, method, method.getAnnotation(PreSubmit.class).onActions());
                 }
                 if (method.isAnnotationPresent(PreAction.class)) {
-                    preActions.add(method);
+                    addActions(preActions, method, method.getAnnotation(PreAction.class).onActions());
                 }
                 if (method.isAnnotationPresent(Unescape.class)) {
                     Matcher matcher = SET_METHOD_PATTERN.matcher(method.getName());
@@ -315,14 +320,47 @@ enum BeanHelper {
             executeAccessMethods.put(clazz, executeAccess.toArray(new Method[executeAccess.size()]));
             postConstructMethods.put(clazz, postConstructs.toArray(new Method[postConstructs.size()]));
             preDestroyMethods.put(clazz, preDestroys.toArray(new Method[preDestroys.size()]));
-            postSubmitMethods.put(clazz, postSubmits.toArray(new Method[postSubmits.size()]));
-            postActionMethods.put(clazz, postActions.toArray(new Method[postActions.size()]));
-            preSubmitMethods.put(clazz, preSubmits.toArray(new Method[preSubmits.size()]));
-            preActionMethods.put(clazz, preActions.toArray(new Method[preActions.size()]));
+            postSubmitActions.put(clazz, Collections.unmodifiableMap(postSubmits));
+            postActionActions.put(clazz, Collections.unmodifiableMap(postActions));
+            preSubmitActions.put(clazz, Collections.unmodifiableMap(preSubmits));
+            preActionActions.put(clazz, Collections.unmodifiableMap(preActions));
             unescapeMethods.put(clazz, unescapes.toArray(new String[unescapes.size()]));
         }
     }
 
+    // Index the action methods by lower cased action name so submits are dispatched with a single lookup
+    private void addActions(Map<String, MethodHandle> actions, Method method, String[] onActions) {
+        if (method.getParameterTypes().length > 0) {
+            LOGGER.log(Level.WARNING, "Action method [" + method + "] must not declare parameters, it will not be invoked");
+            return;
+        }
+        MethodHandle handle = getActionHandle(method);
+        if (handle == null) {
+            return;
+        }
+        for (String onAction : onActions) {
+            String action = onAction.toLowerCase(Locale.ROOT);
+            if (!actions.containsKey(action)) {
+                actions.put(action, handle);
+            }
+        }
+    }
+
+    private MethodHandle getActionHandle(Method method) {
+        MethodType actionType = MethodType.methodType(Object.class, Object.class);
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(actionType);
+        } catch (IllegalAccessException ex) {
+            try {
+                method.setAccessible(true);
+                return MethodHandles.lookup().unreflect(method).asType(actionType);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Action method [" + method + "] is not accessible: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
     Field[] getAuthFields(Class<?> clazz) {
         Field[] fields = authFields.get(clazz);
         return fields != null ? fields : new Field[]{};
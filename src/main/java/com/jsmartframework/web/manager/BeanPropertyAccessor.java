@@ -0,0 +1,331 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.Set;
+
+import javax.el.ELException;
+import javax.el.ExpressionFactory;
+import javax.el.VariableMapper;
+import javax.servlet.jsp.PageContext;
+
+final class BeanPropertyAccessor {
+
+    // Returned when the expression must be resolved by the EL resolver chain
+    static final Object NOT_RESOLVED = new Object();
+
+    private static final Set<String> IMPLICIT_OBJECTS = new HashSet<>(Arrays.asList("pageContext", "pageScope",
+            "requestScope", "sessionScope", "applicationScope", "param", "paramValues", "header", "headerValues",
+            "initParam", "cookie"));
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // Accessors are kept per class, so they are released along with the class loader on redeploy
+    private static final ClassValue<Map<String, Property>> PROPERTIES = new ClassValue<Map<String, Property>>() {
+        @Override
+        protected Map<String, Property> computeValue(Class<?> clazz) {
+            return createProperties(clazz);
+        }
+    };
+
+    private BeanPropertyAccessor() {
+        // DO NOTHING
+    }
+
+    static Object getValue(String expr) {
+        String[] path = splitSimplePath(expr);
+        if (path == null) {
+            return NOT_RESOLVED;
+        }
+
+        Object base = findBean(path[0]);
+        if (base == null) {
+            return NOT_RESOLVED;
+        }
+        return getValue(base, path);
+    }
+
+    // Resolve the properties of the path after the bean name
+    static Object getValue(Object base, String[] path) {
+        for (int i = 1; i < path.length; i++) {
+            if (base instanceof Map) {
+                base = ((Map<?, ?>) base).get(path[i]);
+            } else {
+                Property property = getProperty(base, path[i]);
+                if (property == null || property.getter == null) {
+                    return NOT_RESOLVED;
+                }
+                base = property.get(base);
+            }
+
+            // Same as EL, properties of null values are evaluated as null
+            if (base == null) {
+                return null;
+            }
+        }
+        return base;
+    }
+
+    static boolean setValue(String expr, Object value) {
+        String[] path = splitSimplePath(expr);
+        if (path == null) {
+            return false;
+        }
+
+        Object base = findBean(path[0]);
+        if (base == null) {
+            return false;
+        }
+        return setValue(base, path, value, WebContext.getExpressionFactory());
+    }
+
+    // Set the last property of the path after the bean name, coercing the value the same way EL does
+    static boolean setValue(Object base, String[] path, Object value, ExpressionFactory expressionFactory) {
+        for (int i = 1; i < path.length - 1; i++) {
+            if (base instanceof Map) {
+                base = ((Map<?, ?>) base).get(path[i]);
+            } else {
+                Property property = getProperty(base, path[i]);
+                if (property == null || property.getter == null) {
+                    return false;
+                }
+                base = property.get(base);
+            }
+
+            // Let EL report the null intermediate value the same way it always did
+            if (base == null) {
+                return false;
+            }
+        }
+
+        // Maps are written by EL so read only and unmodifiable maps are reported as not writable
+        if (base instanceof Map) {
+            return false;
+        }
+
+        Property property = getProperty(base, path[path.length - 1]);
+        if (property == null || property.setter == null) {
+            return false;
+        }
+        property.set(base, expressionFactory.coerceToType(value, property.type));
+        return true;
+    }
+
+    // Simple paths are identifiers separated by dots with at least one property, such as bean.property
+    static String[] splitSimplePath(String expr) {
+        if (expr == null || expr.isEmpty()) {
+            return null;
+        }
+
+        int count = 1;
+        boolean identifierStart = true;
+
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (c == '.') {
+                if (identifierStart) {
+                    return null;
+                }
+                identifierStart = true;
+                count++;
+            } else if (identifierStart ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)) {
+                identifierStart = false;
+            } else {
+                return null;
+            }
+        }
+
+        if (count < 2 || identifierStart) {
+            return null;
+        }
+
+        String[] path = expr.split("\\.");
+        if (IMPLICIT_OBJECTS.contains(path[0]) || isReservedWord(path)) {
+            return null;
+        }
+        return path;
+    }
+
+    private static boolean isReservedWord(String[] path) {
+        for (String name : path) {
+            switch (name) {
+                case "and": case "or": case "not": case "eq": case "ne": case "lt": case "gt": case "le": case "ge":
+                case "true": case "false": case "null": case "instanceof": case "empty": case "div": case "mod":
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // Only beans registered by the framework are looked up, anything else may be resolved differently by
+    // the EL resolver chain. Variables mapped on the EL context take precedence over any bean with same name
+    private static Object findBean(String name) {
+        if (!HANDLER.webBeans.containsKey(name) && !HANDLER.authBeans.containsKey(name)) {
+            return null;
+        }
+        PageContext pageContext = WebContext.getPageContext();
+        if (pageContext == null) {
+            return null;
+        }
+        VariableMapper variableMapper = pageContext.getELContext().getVariableMapper();
+        if (variableMapper != null && variableMapper.resolveVariable(name) != null) {
+            return null;
+        }
+
+        Object lazyBean = HANDLER.resolveLazyBean(name);
+        if (lazyBean != null) {
+            return lazyBean;
+        }
+        // Same lookup order used by the EL scoped attribute resolver
+        return pageContext.findAttribute(name);
+    }
+
+    // Lists, arrays and resource bundles have their own EL resolvers which run before the bean resolver
+    private static Property getProperty(Object base, String name) {
+        if (base instanceof List || base instanceof ResourceBundle || base.getClass().isArray()) {
+            return null;
+        }
+        return PROPERTIES.get(base.getClass()).get(name);
+    }
+
+    private static Map<String, Property> createProperties(Class<?> clazz) {
+        Map<String, Property> properties = new HashMap<>();
+        try {
+            BeanInfo beanInfo = Introspector.getBeanInfo(clazz);
+            for (PropertyDescriptor descriptor : beanInfo.getPropertyDescriptors()) {
+                if (descriptor.getPropertyType() == null) {
+                    continue;
+                }
+                MethodHandle getter = unreflect(clazz, descriptor.getReadMethod(), GETTER_TYPE);
+                MethodHandle setter = unreflect(clazz, descriptor.getWriteMethod(), SETTER_TYPE);
+
+                if (getter != null || setter != null) {
+                    properties.put(descriptor.getName(), new Property(descriptor.getPropertyType(), getter, setter));
+                }
+            }
+        } catch (IntrospectionException ex) {
+            // Properties of this class are resolved by EL
+        }
+        return Collections.unmodifiableMap(properties);
+    }
+
+    private static MethodHandle unreflect(Class<?> clazz, Method method, MethodType type) {
+        method = getAccessibleMethod(clazz, method);
+        if (method == null) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(type);
+        } catch (IllegalAccessException ex) {
+            return null;
+        }
+    }
+
+    // Methods declared on non public classes are looked up on public interfaces and super classes like EL does
+    private static Method getAccessibleMethod(Class<?> clazz, Method method) {
+        if (method == null || !Modifier.isPublic(method.getModifiers())) {
+            return null;
+        }
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+            return method;
+        }
+        for (Class<?> type = clazz; type != null; type = type.getSuperclass()) {
+            for (Class<?> interfaceClass : type.getInterfaces()) {
+                Method accessible = getPublicMethod(interfaceClass, method);
+                if (accessible != null) {
+                    return accessible;
+                }
+            }
+            if (type != clazz) {
+                Method accessible = getPublicMethod(type, method);
+                if (accessible != null) {
+                    return accessible;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Method getPublicMethod(Class<?> type, Method method) {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return null;
+        }
+        try {
+            return type.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    private static class Property {
+
+        private final Class<?> type;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private Property(Class<?> type, MethodHandle getter, MethodHandle setter) {
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private Object get(Object base) {
+            try {
+                return (Object) getter.invokeExact(base);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new ELException(ex);
+            }
+        }
+
+        private void set(Object base, Object value) {
+            try {
+                setter.invokeExact(base, value);
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new ELException(ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+final class BootstrapScheduler {
+
+    private static final Logger LOGGER = Logger.getLogger(BootstrapScheduler.class.getPackage().getName());
+
+    private final String name;
+
+    private final int parallelism;
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+
+    BootstrapScheduler(String name, int parallelism) {
+        this.name = name;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // Dependencies must be added before the phases depending on them, so cycles cannot be declared
+    void addPhase(String phaseName, Runnable task, String... dependencies) {
+        addPhase(phaseName, task, false, dependencies);
+    }
+
+    // Phases relying on state bound to the container thread, such as java:comp JNDI names, run on the calling
+    // thread while the other phases run on the pool
+    void addCallerPhase(String phaseName, Runnable task) {
+        addPhase(phaseName, task, true);
+    }
+
+    private void addPhase(String phaseName, Runnable task, boolean callerThread, String... dependencies) {
+        if (phases.containsKey(phaseName)) {
+            throw new RuntimeException("Bootstrap phase [" + phaseName + "] was already added");
+        }
+        List<Phase> phaseDependencies = new ArrayList<>();
+        for (String dependency : dependencies) {
+            Phase phase = phases.get(dependency);
+            if (phase == null) {
+                throw new RuntimeException("Bootstrap phase [" + phaseName + "] depends on unknown phase [" + dependency + "]");
+            }
+            phaseDependencies.add(phase);
+        }
+        phases.put(phaseName, new Phase(phaseName, task, callerThread, phaseDependencies));
+    }
+
+    void run() {
+        long start = System.currentTimeMillis();
+        try {
+            if (parallelism == 1) {
+                for (Phase phase : phases.values()) {
+                    phase.execute(start);
+                }
+            } else {
+                runParallel(start);
+            }
+        } finally {
+            logReport(start);
+        }
+    }
+
+    private void runParallel(final long start) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism, getThreadFactory(), null, false);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (final Phase phase : phases.values()) {
+                if (phase.callerThread) {
+                    phase.future = new CompletableFuture<>();
+                    futures.add(phase.future);
+                    continue;
+                }
+
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[phase.dependencies.size()];
+                for (int i = 0; i < dependencies.length; i++) {
+                    dependencies[i] = phase.dependencies.get(i).future;
+                }
+
+                phase.future = CompletableFuture.allOf(dependencies).thenRunAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        phase.execute(start);
+                    }
+                }, pool);
+                futures.add(phase.future);
+            }
+
+            for (Phase phase : phases.values()) {
+                if (phase.callerThread) {
+                    try {
+                        phase.execute(start);
+                        phase.future.complete(null);
+                    } catch (RuntimeException | Error ex) {
+                        phase.future.completeExceptionally(ex);
+                    }
+                }
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+            } catch (CompletionException ex) {
+                // Report the failure of the first phase declared, the dependent phases are just skipped
+                for (Phase phase : phases.values()) {
+                    if (phase.failure != null) {
+                        throw phase.failure instanceof RuntimeException ? (RuntimeException) phase.failure
+                                : new RuntimeException(phase.failure);
+                    }
+                }
+                throw ex;
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Workers use the caller class loader so resources and Spring bindings resolve as on the caller thread
+    private ForkJoinPool.ForkJoinWorkerThreadFactory getThreadFactory() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(name + "-bootstrap-" + threadCount.incrementAndGet());
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            }
+        };
+    }
+
+    private void logReport(long start) {
+        LOGGER.log(Level.INFO, "Bootstrap of " + name + " finished in [" + (System.currentTimeMillis() - start) + "] ms using ["
+                + parallelism + "] threads");
+        for (Phase phase : phases.values()) {
+            if (phase.thread == null) {
+                LOGGER.log(Level.INFO, "Bootstrap phase [" + phase.name + "] skipped");
+            } else {
+                LOGGER.log(Level.INFO, "Bootstrap phase [" + phase.name + "] " + (phase.failure != null ? "failed" : "done")
+                        + " on [" + phase.thread + "] started at [" + phase.start + "] ms and took [" + (phase.end - phase.start) + "] ms");
+            }
+        }
+    }
+
+    private static class Phase {
+
+        private final String name;
+
+        private final Runnable task;
+
+        private final boolean callerThread;
+
+        private final List<Phase> dependencies;
+
+        private CompletableFuture<Void> future;
+
+        private volatile String thread;
+
+        private volatile long start;
+
+        private volatile long end;
+
+        private volatile Throwable failure;
+
+        private Phase(String name, Runnable task, boolean callerThread, List<Phase> dependencies) {
+            this.name = name;
+            this.task = task;
+            this.callerThread = callerThread;
+            this.dependencies = dependencies;
+        }
+
+        private void execute(long bootstrapStart) {
+            thread = Thread.currentThread().getName();
+            start = System.currentTimeMillis() - bootstrapStart;
+            try {
+                task.run();
+            } catch (RuntimeException | Error ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                end = System.currentTimeMillis() - bootstrapStart;
+            }
+        }
+    }
+
+}
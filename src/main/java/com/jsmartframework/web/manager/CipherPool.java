@@ -0,0 +1,94 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+final class CipherPool {
+
+    private static final String ALGORITHM = "AES";
+
+    private static final int MAX_POOLED_CIPHERS = Runtime.getRuntime().availableProcessors() * 2;
+
+    // Ciphers are borrowed for a single operation, so they are never shared between threads
+    // and do not depend on the thread or request which created them
+    private static final ConcurrentMap<String, KeyCiphers> KEY_CIPHERS = new ConcurrentHashMap<>();
+
+    private CipherPool() {
+        // DO NOTHING
+    }
+
+    static byte[] encrypt(String key, byte[] value) throws GeneralSecurityException, UnsupportedEncodingException {
+        return doFinal(getKeyCiphers(key), Cipher.ENCRYPT_MODE, value);
+    }
+
+    static byte[] decrypt(String key, byte[] value) throws GeneralSecurityException, UnsupportedEncodingException {
+        return doFinal(getKeyCiphers(key), Cipher.DECRYPT_MODE, value);
+    }
+
+    private static byte[] doFinal(KeyCiphers keyCiphers, int mode, byte[] value) throws GeneralSecurityException {
+        BlockingQueue<Cipher> ciphers = mode == Cipher.ENCRYPT_MODE ? keyCiphers.encryptCiphers : keyCiphers.decryptCiphers;
+
+        Cipher cipher = ciphers.poll();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(ALGORITHM);
+            cipher.init(mode, keyCiphers.secretKey);
+        }
+
+        // Cipher is reset to its initialized state after doFinal, failed ones are discarded
+        byte[] result = cipher.doFinal(value);
+        ciphers.offer(cipher);
+        return result;
+    }
+
+    private static KeyCiphers getKeyCiphers(String key) throws UnsupportedEncodingException {
+        KeyCiphers keyCiphers = KEY_CIPHERS.get(key);
+        if (keyCiphers == null) {
+            keyCiphers = new KeyCiphers(new SecretKeySpec(key.getBytes("UTF8"), ALGORITHM));
+            KeyCiphers current = KEY_CIPHERS.putIfAbsent(key, keyCiphers);
+            if (current != null) {
+                keyCiphers = current;
+            }
+        }
+        return keyCiphers;
+    }
+
+    private static class KeyCiphers {
+
+        private final SecretKey secretKey;
+
+        private final BlockingQueue<Cipher> encryptCiphers = new ArrayBlockingQueue<>(MAX_POOLED_CIPHERS);
+
+        private final BlockingQueue<Cipher> decryptCiphers = new ArrayBlockingQueue<>(MAX_POOLED_CIPHERS);
+
+        private KeyCiphers(SecretKey secretKey) {
+            this.secretKey = secretKey;
+        }
+    }
+
+}
@@ -19,7 +19,9 @@
 package com.jsmartframework.web.manager;
 
 import static com.jsmartframework.web.config.Config.CONFIG;
+import static com.jsmartframework.web.config.Constants.ASSETS_URL_PATTERN;
 import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
+import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
 import static com.jsmartframework.web.util.WebImage.IMAGES;
 import static com.jsmartframework.web.util.WebText.TEXTS;
 
@@ -74,7 +76,7 @@ public final class ContextControl implements ServletContextListener {
     @SuppressWarnings("unchecked")
     public void contextInitialized(ServletContextEvent event) {
         try {
-            ServletContext servletContext = event.getServletContext();
+            final ServletContext servletContext = event.getServletContext();
 
             CONFIG.init(servletContext);
             if (CONFIG.getContent() == null) {
@@ -91,12 +93,43 @@ public final class ContextControl implements ServletContextListener {
             configWebAppContext.setConfigLocation(contextConfigLocation);
 
             CONTEXT_LOADER = new ContextLoader(configWebAppContext);
-            CONTEXT_LOADER.initWebApplicationContext(servletContext);
 
-            TagEncrypter.init();
-            TEXTS.init();
-            IMAGES.init(servletContext);
-            HANDLER.init(servletContext);
+            // Independent phases run concurrently, the registrations below only start after all of them are done.
+            // Spring runs on this thread as its beans may look up java:comp/env names. The other phases only map
+            // classes, the Spring context set by ContextAware is first read when injecting beans after the bootstrap
+            BootstrapScheduler scheduler = new BootstrapScheduler("context", CONFIG.getContent().getBootstrapThreads());
+            scheduler.addCallerPhase("spring-context", new Runnable() {
+                @Override
+                public void run() {
+                    CONTEXT_LOADER.initWebApplicationContext(servletContext);
+                }
+            });
+            scheduler.addPhase("tag-encrypter", new Runnable() {
+                @Override
+                public void run() {
+                    TagEncrypter.init();
+                }
+            });
+            scheduler.addPhase("texts", new Runnable() {
+                @Override
+                public void run() {
+                    TEXTS.init();
+                }
+            });
+            scheduler.addPhase("expressions", new Runnable() {
+                @Override
+                public void run() {
+                    EXPRESSIONS.init();
+                }
+            });
+            scheduler.addPhase("images", new Runnable() {
+                @Override
+                public void run() {
+                    IMAGES.init(servletContext);
+                }
+            });
+            HANDLER.init(servletContext, scheduler);
+            scheduler.run();
 
             // ServletControl -> @MultipartConfig @WebServlet(name = "ServletControl", displayName = "ServletControl", loadOnStartup = 1)
             Servlet servletControl = servletContext.createServlet((Class<? extends Servlet>) Class.forName("com.jsmartframework.web.manager.ServletControl"));
@@ -155,6 +188,16 @@ public final class ContextControl implements ServletContextListener {
             cacheFilterReg.setAsyncSupported(true);
             cacheFilterReg.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST, DispatcherType.ERROR), true, "/*");
 
+            // AssetFilter -> @WebFilter(urlPatterns = {"/jsmart/*"})
+            // Filter used to serve the precompressed framework assets, only available case assets are copied locally
+            if (CONFIG.getContent().getAssetsUrl() == null && CONFIG.getContent().isCopyAssets()) {
+                Filter assetFilter = servletContext.createFilter((Class<? extends Filter>) Class.forName("com.jsmartframework.web.filter.AssetFilter"));
+                FilterRegistration.Dynamic assetFilterReg = (FilterRegistration.Dynamic) servletContext.addFilter("AssetFilter", assetFilter);
+
+                assetFilterReg.setAsyncSupported(true);
+                assetFilterReg.addMappingForUrlPatterns(EnumSet.of(DispatcherType.REQUEST), true, ASSETS_URL_PATTERN);
+            }
+
             // Add custom filters defined by client
             for (String filterName : sortCustomFilters()) {
                 Filter customFilter = servletContext.createFilter((Class<? extends Filter>) HANDLER.webFilters.get(filterName));
@@ -197,6 +240,15 @@ public final class ContextControl implements ServletContextListener {
             asyncFilterReg.setAsyncSupported(true);
             asyncFilterReg.addMappingForServletNames(EnumSet.of(DispatcherType.ASYNC), true, "ServletControl");
 
+            // AssetServlet -> @WebServlet(urlPatterns = {"/jsmart/*"})
+            // Servlet used to serve the framework assets directly from library JAR case assets are not copied
+            if (CONFIG.getContent().getAssetsUrl() == null && !CONFIG.getContent().isCopyAssets()) {
+                Servlet assetServlet = servletContext.createServlet((Class<? extends Servlet>) Class.forName("com.jsmartframework.web.manager.AssetServlet"));
+                ServletRegistration.Dynamic assetServletReg = (ServletRegistration.Dynamic) servletContext.addServlet("AssetServlet", assetServlet);
+                assetServletReg.setLoadOnStartup(1);
+                assetServletReg.addMapping(ASSETS_URL_PATTERN);
+            }
+
             // SessionControl -> @WebListener
             EventListener sessionListener = servletContext.createListener((Class<? extends EventListener>) Class.forName("com.jsmartframework.web.manager.SessionControl"));
             servletContext.addListener(sessionListener);
@@ -253,6 +305,8 @@ public final class ContextControl implements ServletContextListener {
     @Override
     public void contextDestroyed(ServletContextEvent event) {
         HANDLER.destroy(event.getServletContext());
+        EXPRESSIONS.destroy();
+        TagEncrypter.destroy();
         CONTEXT_LOADER.closeWebApplicationContext(event.getServletContext());
     }
 
@@ -23,6 +23,9 @@ import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
 import static com.jsmartframework.web.config.Constants.ENCODING;
 import static com.jsmartframework.web.manager.BeanHandler.AnnotatedFunction;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.html.HtmlEscapers;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -57,6 +60,7 @@ import javax.el.ELContext;
 import javax.el.MethodExpression;
 import javax.el.PropertyNotWritableException;
 import javax.el.ValueExpression;
+import javax.el.VariableMapper;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 
@@ -82,10 +86,49 @@ enum ExpressionHandler {
             .registerTypeAdapter(Date.class, new JsonConverter.DateTypeConverter())
             .create();
 
+    private Cache<String, ValueExpression> valueExpressions;
+
+    private Cache<String, MethodExpression> methodExpressions;
+
+    void init() {
+        int cacheSize = CONFIG.getContent().getExpressionCacheSize();
+        valueExpressions = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        methodExpressions = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+    }
+
+    void destroy() {
+        if (valueExpressions != null) {
+            LOGGER.log(Level.INFO, "Value expressions cache " + getStatsReport(valueExpressions.stats()));
+            LOGGER.log(Level.INFO, "Method expressions cache " + getStatsReport(methodExpressions.stats()));
+            valueExpressions.invalidateAll();
+            methodExpressions.invalidateAll();
+        }
+    }
+
+    CacheStats getValueExpressionStats() {
+        return valueExpressions != null ? valueExpressions.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    CacheStats getMethodExpressionStats() {
+        return methodExpressions != null ? methodExpressions.stats() : new CacheStats(0, 0, 0, 0, 0, 0);
+    }
+
+    Map<String, String> getStats() {
+        Map<String, String> stats = new LinkedHashMap<>();
+        stats.put("valueExpressions", getStatsReport(getValueExpressionStats()));
+        stats.put("methodExpressions", getStatsReport(getMethodExpressionStats()));
+        return stats;
+    }
+
+    static String getStatsReport(CacheStats stats) {
+        return String.format("hit rate [%.2f%%], hits [%d], misses [%d], evictions [%d]", stats.hitRate() * 100,
+                stats.hitCount(), stats.missCount(), stats.evictionCount());
+    }
+
     Map<String, String> getRequestExpressions(HttpServletRequest request) {
         Map<String, String> expressions = new LinkedHashMap<>();
         for (String param : request.getParameterMap().keySet()) {
-            String expr = extractExpression(request, param);
+            String expr = extractExpression(param);
             if (expr != null) {
                 expressions.put(param, expr);
             }
@@ -93,10 +136,10 @@ enum ExpressionHandler {
         return expressions;
     }
 
-    private String extractExpression(HttpServletRequest request, String param) {
+    private String extractExpression(String param) {
         Matcher matcher = TagHandler.J_TAG_PATTERN.matcher(param);
         if (matcher.find()) {
-            return TagEncrypter.decrypt(request, matcher.group(2).replace("[]", ""));
+            return TagEncrypter.decrypt(matcher.group(2).replace("[]", ""));
         }
         return null;
     }
@@ -175,8 +218,7 @@ enum ExpressionHandler {
                     // Call submit method
                     ELContext context = WebContext.getPageContext().getELContext();
 
-                    MethodExpression methodExpr = WebContext.getExpressionFactory().createMethodExpression(context, elBeanMethod,
-                            null, arguments != null ? new Class<?>[arguments.length] : new Class<?>[]{});
+                    MethodExpression methodExpr = getMethodExpression(context, elBeanMethod, arguments != null ? arguments.length : 0);
 
                     response = methodExpr.invoke(context, arguments);
 
@@ -227,7 +269,7 @@ enum ExpressionHandler {
                 Scroll scroll = null;
 
                 if (valuesMatcher.find()) {
-                    object = getExpressionValue(TagEncrypter.decrypt(request, valuesMatcher.group(2)));
+                    object = getExpressionValue(TagEncrypter.decrypt(valuesMatcher.group(2)));
                 }
 
                 if (object instanceof ListAdapter) {
@@ -249,7 +291,7 @@ enum ExpressionHandler {
 
                 if (list != null && !list.isEmpty()) {
                     ELContext context = WebContext.getPageContext().getELContext();
-                    ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
+                    ValueExpression valueExpr = getValueExpression(context, beanMethod);
 
                     Integer index = Integer.parseInt(request.getParameter(TagHandler.J_SEL_VAL + jParam));
 
@@ -276,17 +318,12 @@ enum ExpressionHandler {
             String[] methodSign = beanMethod.split(Constants.EL_SEPARATOR);
 
             if (methodSign.length > 0 && WebContext.containsAttribute(methodSign[0])) {
-                beanMethod = String.format(Constants.JSP_EL, beanMethod);
-
-                ELContext context = WebContext.getPageContext().getELContext();
-                ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
-
                 Object value = WebContext.getRequest().getParameter(TagHandler.J_TAG + jParam);
 
                 if (!HANDLER.containsUnescapeMethod(methodSign)) {
                     value = escapeValue((String) value);
                 }
-                valueExpr.setValue(context, value);
+                setValue(beanMethod, value);
             }
         }
     }
@@ -300,11 +337,7 @@ enum ExpressionHandler {
                 String[] methodSign = beanMethod.split(Constants.EL_SEPARATOR);
 
                 if (methodSign.length > 0 && WebContext.containsAttribute(methodSign[0])) {
-                    beanMethod = String.format(Constants.JSP_EL, beanMethod);
-
-                    ELContext context = WebContext.getPageContext().getELContext();
-                    ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
-                    valueExpr.setValue(context, value);
+                    setValue(beanMethod, value);
                 }
             }
         }
@@ -322,8 +355,6 @@ enum ExpressionHandler {
             String[] methodSign = beanMethod.split(Constants.EL_SEPARATOR);
 
             if (methodSign.length > 0 && WebContext.containsAttribute(methodSign[0])) {
-                beanMethod = String.format(Constants.JSP_EL, beanMethod);
-
                 List<Object> list = new ArrayList<Object>();
                 String[] values = WebContext.getRequest().getParameterValues(TagHandler.J_ARRAY + jParam);
 
@@ -343,10 +374,7 @@ enum ExpressionHandler {
                 if (list.size() == 1 && list.get(0) != null && list.get(0).equals("false")) {
                     list.clear();
                 }
-
-                ELContext context = WebContext.getPageContext().getELContext();
-                ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
-                valueExpr.setValue(context, list);
+                setValue(beanMethod, list);
             }
         }
     }
@@ -359,13 +387,8 @@ enum ExpressionHandler {
             String[] methodSign = beanMethod.split(Constants.EL_SEPARATOR);
 
             if (methodSign.length > 0 && WebContext.containsAttribute(methodSign[0])) {
-                beanMethod = String.format(Constants.JSP_EL, beanMethod);
-
-                ELContext context = WebContext.getPageContext().getELContext();
-                ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
-
                 Object value = WebContext.getRequest().getPart(TagHandler.J_PART + jParam);
-                valueExpr.setValue(context, value);
+                setValue(beanMethod, value);
             }
         }
     }
@@ -385,7 +408,7 @@ enum ExpressionHandler {
                 beanMethod = String.format(Constants.JSP_EL, beanMethod);
 
                 ELContext context = WebContext.getPageContext().getELContext();
-                ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, beanMethod, Object.class);
+                ValueExpression valueExpr = getValueExpression(context, beanMethod);
                 String value = WebContext.getRequest().getParameter(TagHandler.J_DATE + jParam);
 
                 if (StringUtils.isNotBlank(value)) {
@@ -484,11 +507,16 @@ enum ExpressionHandler {
             return WebText.getString(exprs[0], exprs[1]);
         }
 
-        String jspExpr = String.format(Constants.JSP_EL, expr);
+        // Simple property paths are read straight from the bean accessors
+        Object obj = BeanPropertyAccessor.getValue(expr);
+
+        if (obj == BeanPropertyAccessor.NOT_RESOLVED) {
+            String jspExpr = String.format(Constants.JSP_EL, expr);
 
-        ELContext context = WebContext.getPageContext().getELContext();
-        ValueExpression valueExpr = WebContext.getExpressionFactory().createValueExpression(context, jspExpr, Object.class);
-        Object obj = valueExpr.getValue(context);
+            ELContext context = WebContext.getPageContext().getELContext();
+            ValueExpression valueExpr = getValueExpression(context, jspExpr);
+            obj = valueExpr.getValue(context);
+        }
 
         if (obj instanceof String) {
             String[] objs = obj.toString().split(Constants.EL_SEPARATOR, 2);
@@ -499,6 +527,96 @@ enum ExpressionHandler {
         return obj;
     }
 
+    // Simple property paths are written straight through the bean accessors, other expressions through EL
+    private void setValue(String beanMethod, Object value) {
+        if (!BeanPropertyAccessor.setValue(beanMethod, value)) {
+            ELContext context = WebContext.getPageContext().getELContext();
+            ValueExpression valueExpr = getValueExpression(context, String.format(Constants.JSP_EL, beanMethod));
+            valueExpr.setValue(context, value);
+        }
+    }
+
+    private ValueExpression getValueExpression(ELContext context, String jspExpr) {
+        if (valueExpressions == null || !isCacheableExpression(context, jspExpr)) {
+            return WebContext.getExpressionFactory().createValueExpression(context, jspExpr, Object.class);
+        }
+
+        ValueExpression valueExpr = valueExpressions.getIfPresent(jspExpr);
+        if (valueExpr == null) {
+            valueExpr = WebContext.getExpressionFactory().createValueExpression(context, jspExpr, Object.class);
+            valueExpressions.put(jspExpr, valueExpr);
+        }
+        return valueExpr;
+    }
+
+    private MethodExpression getMethodExpression(ELContext context, String jspExpr, int paramCount) {
+        if (methodExpressions == null || !isCacheableExpression(context, jspExpr)) {
+            return WebContext.getExpressionFactory().createMethodExpression(context, jspExpr, null, new Class<?>[paramCount]);
+        }
+
+        String key = jspExpr + "/" + paramCount;
+        MethodExpression methodExpr = methodExpressions.getIfPresent(key);
+        if (methodExpr == null) {
+            methodExpr = WebContext.getExpressionFactory().createMethodExpression(context, jspExpr, null, new Class<?>[paramCount]);
+            methodExpressions.put(key, methodExpr);
+        }
+        return methodExpr;
+    }
+
+    // Parsed expressions hold the functions and variables mapped by the page at parsing time,
+    // so only expressions which do not depend on them can be reused across pages and requests
+    private boolean isCacheableExpression(ELContext context, String jspExpr) {
+        if (jspExpr.indexOf(':') >= 0) {
+            return false;
+        }
+
+        VariableMapper variableMapper = context.getVariableMapper();
+        if (variableMapper == null) {
+            return true;
+        }
+
+        int i = 0;
+        while (i < jspExpr.length()) {
+            char c = jspExpr.charAt(i);
+
+            // String literals and property names are not variables, skip them entirely
+            if (c == '\'' || c == '"') {
+                i = skipLiteral(jspExpr, i);
+            } else if (c == '.' || Character.isDigit(c)) {
+                i = skipIdentifier(jspExpr, i + 1);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = skipIdentifier(jspExpr, i);
+                if (variableMapper.resolveVariable(jspExpr.substring(i, end)) != null) {
+                    return false;
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return true;
+    }
+
+    private int skipIdentifier(String jspExpr, int index) {
+        while (index < jspExpr.length() && Character.isJavaIdentifierPart(jspExpr.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private int skipLiteral(String jspExpr, int index) {
+        char quote = jspExpr.charAt(index++);
+        while (index < jspExpr.length()) {
+            char c = jspExpr.charAt(index++);
+            if (c == '\\') {
+                index++;
+            } else if (c == quote) {
+                break;
+            }
+        }
+        return index;
+    }
+
     private Object getExpressionBean(String name) {
         return WebContext.getAttribute(name);
     }
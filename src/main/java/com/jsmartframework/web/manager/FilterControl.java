@@ -24,6 +24,7 @@ import static com.jsmartframework.web.config.Constants.CSRF_TOKEN_VALUE;
 import static com.jsmartframework.web.config.Constants.ENCODING;
 import static com.jsmartframework.web.config.Constants.FILTER_HEADERS;
 import static com.jsmartframework.web.config.Constants.FILTER_RESOURCES;
+import static com.jsmartframework.web.config.Constants.GZIP_FILE_EXTENSION;
 import static com.jsmartframework.web.config.Constants.IMPLEMENTATION_VERSION;
 import static com.jsmartframework.web.config.Constants.INDEX_JSP;
 import static com.jsmartframework.web.config.Constants.LIB_FILE_PATH;
@@ -38,6 +39,7 @@ import static com.jsmartframework.web.config.Constants.REQUEST_PAGE_SCRIPT_ATTR;
 import static com.jsmartframework.web.config.Constants.REQUEST_REDIRECT_PATH_AJAX_ATTR;
 import static com.jsmartframework.web.config.Constants.REQUEST_REDIRECT_WINDOW_PATH_AJAX_ATTR;
 import static com.jsmartframework.web.config.Constants.REQUEST_EXPOSE_VARS_ATTR;
+import static com.jsmartframework.web.config.Constants.REQUEST_STREAM_HTML_ATTR;
 import static com.jsmartframework.web.config.Constants.SESSION_RESET_ATTR;
 import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
 import static com.jsmartframework.web.manager.BeanHandler.AnnotatedFunction;
@@ -46,15 +48,16 @@ import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
 import com.googlecode.htmlcompressor.compressor.HtmlCompressor;
 import com.jsmartframework.web.config.FileVersion;
 import com.jsmartframework.web.config.HtmlCompress;
+import com.jsmartframework.web.config.UrlPattern;
 import com.jsmartframework.web.json.Headers;
 import com.jsmartframework.web.json.Resources;
 import com.jsmartframework.web.tag.FunctionTagHandler;
 import com.jsmartframework.web.tag.html.DocScript;
-import com.jsmartframework.web.tag.html.Head;
 import com.jsmartframework.web.tag.html.Meta;
 import com.jsmartframework.web.tag.html.Script;
 
 import com.jsmartframework.web.tag.html.Tag;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.reflections.vfs.Vfs;
@@ -67,20 +70,29 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashMap;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Scanner;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -101,34 +113,66 @@ public final class FilterControl implements Filter {
 
     private static final int STREAM_BUFFER = 2048;
 
+    private static final Pattern GZIP_FILE_PATTERN = Pattern.compile(".*\\.(js|css|map|json|svg|ttf|eot|otf|html|txt)$");
+
     private static final Logger LOGGER = Logger.getLogger(FilterControl.class.getPackage().getName());
 
-    private static final Pattern HTML_PATTERN = Pattern.compile("(<html.*?>)");
+    private static final Pattern JAR_FILE_PATTERN = Pattern.compile(LIB_JAR_FILE_PATTERN);
+
+    private static final int FILE_HASH_LENGTH = 16;
 
-    private static final Pattern START_HEAD_PATTERN = Pattern.compile("(<head.*?>)");
+    private static final Pattern HEADER_PATH_PATTERN = Pattern.compile("(?:href|src)=\"%s([^\"]+)\"");
 
-    private static final Pattern CLOSE_BODY_PATTERN = Pattern.compile("(</body.*?>)");
+    private static final String BUNDLE_STYLE_TAG = "<link rel=\"stylesheet\" type=\"text/css\" href=\"%s\"/>";
 
-    private static final Pattern SCRIPT_BODY_PATTERN = Pattern.compile("(<body.*?>\\s*)(<script.*?>)", Pattern.DOTALL);
+    private static final String BUNDLE_PRELOAD_TAG = "<link rel=\"preload\" as=\"script\" href=\"%s\"/>";
 
-    private static final Pattern JAR_FILE_PATTERN = Pattern.compile(LIB_JAR_FILE_PATTERN);
+    private static final String PRELOAD_SCRIPT_TAG = "<link rel=\"preload\" as=\"script\" href=\"%s%s\"/>";
 
-    private static Map<String, Pattern> versionFilePatterns = new ConcurrentHashMap<>();
+    private static final String BUNDLE_SCRIPT_TAG = "<script type=\"text/javascript\" src=\"%s\"></script>";
+
+    private static VersionPathMatcher versionMatcher = new VersionPathMatcher();
+
+    private static Map<String, String> fileHashes = new ConcurrentHashMap<>();
 
     private static StringBuilder headerScripts = new StringBuilder();
 
     private static StringBuilder headerStyles = new StringBuilder();
 
+    private static StringBuilder headerPreloads = new StringBuilder();
+
+    private static Map<String, AssetBundle> assetBundles;
+
     @Override
-    public void init(FilterConfig config) throws ServletException {
-        initHeaders(config);
-        initResources(config);
-        versionResources(config);
+    public void init(final FilterConfig config) throws ServletException {
+        checkStreamHtml();
+
+        // Versions are applied on the webroot after the framework resources are copied into it
+        BootstrapScheduler scheduler = new BootstrapScheduler("filter", CONFIG.getContent().getBootstrapThreads());
+        scheduler.addPhase("headers", new Runnable() {
+            @Override
+            public void run() {
+                initHeaders(config);
+            }
+        });
+        scheduler.addPhase("resources", new Runnable() {
+            @Override
+            public void run() {
+                initResources(config);
+            }
+        });
+        scheduler.addPhase("versions", new Runnable() {
+            @Override
+            public void run() {
+                versionResources(config);
+            }
+        }, "resources");
+        scheduler.run();
     }
 
     @Override
     public void destroy() {
-        // DO NOTHING
+        PooledByteBuffer.clearPool();
     }
 
     @Override
@@ -142,44 +186,57 @@ public final class FilterControl implements Filter {
         // Initiate bean context based on current thread instance
         WebContext.initCurrentInstance(httpRequest, httpResponse);
 
-        // Instantiate request scoped authentication bean
-        HANDLER.instantiateAuthBean(httpRequest);
+        Throwable throwable = null;
+        boolean responseWritten;
+        WebFilterResponseWrapper responseWrapper;
+        try {
+            // Instantiate request scoped authentication bean
+            HANDLER.instantiateAuthBean(httpRequest);
 
-        // Instantiate web security for request extra validation
-        HANDLER.instantiateWebSecurity(httpRequest);
+            // Instantiate web security for request extra validation
+            HANDLER.instantiateWebSecurity(httpRequest);
 
-        // Anonymous subclass to wrap HTTP response to print output
-        WebFilterResponseWrapper responseWrapper = new WebFilterResponseWrapper(httpResponse);
+            // Stream the HTML while it is generated instead of buffering the whole response
+            if (isStreamHtml(httpRequest)) {
+                if (WebContext.isStateless() && HANDLER.isSessionRequired(httpRequest.getServletPath())) {
+                    httpRequest.getSession(true);
+                }
+                doStreamFilter(httpRequest, httpResponse, filterChain);
+                return;
+            }
 
-        Throwable throwable = null;
-        try {
-            filterChain.doFilter(request, responseWrapper);
-        } catch (Throwable thrown) {
-            throwable = thrown;
-            thrown.printStackTrace();
-        }
+            // Anonymous subclass to wrap HTTP response to print output
+            responseWrapper = new WebFilterResponseWrapper(httpResponse);
 
-        // Finalize request scoped web and auth beans
-        HANDLER.finalizeBeans(httpRequest, responseWrapper);
+            try {
+                filterChain.doFilter(request, responseWrapper);
+            } catch (Throwable thrown) {
+                throwable = thrown;
+                thrown.printStackTrace();
+            }
 
-        // Check if response was written before closing the WebContext
-        boolean responseWritten = WebContext.isResponseWritten();
+            // Finalize request scoped web and auth beans
+            HANDLER.finalizeBeans(httpRequest, responseWrapper);
 
-        // Close bean context based on current thread instance
-        WebContext.closeCurrentInstance();
+            // Check if response was written before closing the WebContext
+            responseWritten = WebContext.isResponseWritten();
+        } finally {
+            // Close bean context based on current thread instance, so it is never left bound to a pooled thread
+            WebContext.closeCurrentInstance();
+        }
 
         // Case AsyncBean or RequestPath process was started it cannot proceed because it will not provide HTML via framework
         if (httpRequest.isAsyncStarted() || responseWritten) {
 
             // Generate response value after flushing the response wrapper buffer
             responseWrapper.flushBuffer();
-            String responseVal = responseWrapper.toString();
+            String responseVal = responseWrapper.getContentLength() > 0 ? responseWrapper.toString() : null;
 
             // Close current outputStream on responseWrapper
             responseWrapper.close();
 
             // Write the response value on real response object
-            if (!httpResponse.isCommitted()) {
+            if (responseVal != null && !httpResponse.isCommitted()) {
                 httpResponse.getWriter().write(responseVal);
             }
 
@@ -229,10 +286,89 @@ public final class FilterControl implements Filter {
             html = compressor.compress(html);
         }
 
-        // Write our modified text to the real response
+        // Write our modified text to the real response encoding it only once
         if (!httpResponse.isCommitted()) {
-            httpResponse.setContentLength(html.getBytes().length);
-            httpResponse.getWriter().write(html);
+            byte[] htmlBytes = html.getBytes(httpResponse.getCharacterEncoding());
+            httpResponse.setContentLength(htmlBytes.length);
+            httpResponse.getOutputStream().write(htmlBytes);
+        }
+    }
+
+    private void doStreamFilter(HttpServletRequest httpRequest, HttpServletResponse httpResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+
+        // Output expressions are evaluated while streaming so OutputFilter must skip this request
+        httpRequest.setAttribute(REQUEST_STREAM_HTML_ATTR, Boolean.TRUE);
+
+        WebFilterStreamResponseWrapper responseWrapper = new WebFilterStreamResponseWrapper(httpRequest, httpResponse);
+
+        Throwable throwable = null;
+        try {
+            filterChain.doFilter(httpRequest, responseWrapper);
+            responseWrapper.flushWriter();
+        } catch (Throwable thrown) {
+            throwable = thrown;
+            thrown.printStackTrace();
+        }
+
+        boolean responseWritten;
+        try {
+            // Finalize request scoped web and auth beans
+            HANDLER.finalizeBeans(httpRequest, responseWrapper);
+
+            // Check if response was written before closing the WebContext
+            responseWritten = WebContext.isResponseWritten();
+        } finally {
+            // Close bean context based on current thread instance
+            WebContext.closeCurrentInstance();
+        }
+
+        if (httpRequest.isAsyncStarted() || responseWritten) {
+            responseWrapper.finishRaw();
+        } else {
+            // Ajax requests are not streamed, but session reset must still be cleared
+            addAjaxHeaders(httpRequest, responseWrapper);
+
+            // Write page scripts and content held after body end tag
+            responseWrapper.finish();
+        }
+
+        // Case internal server error, the status can only be changed if nothing was sent yet
+        if (throwable != null) {
+            if (!httpResponse.isCommitted()) {
+                httpResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            if (throwable instanceof IOException) {
+                throw new IOException(throwable);
+            }
+            throw new ServletException(throwable);
+        }
+    }
+
+    private boolean isStreamHtml(HttpServletRequest httpRequest) {
+        String path = httpRequest.getServletPath();
+        if (!CONFIG.getContent().isStreamHtml(path) && !CONFIG.getContent().isFlushHead(path)) {
+            return false;
+        }
+
+        // Ajax headers, printed or compressed html and request scoped auth cookies
+        // depend on the whole response so these cases use the buffered response
+        return !"XMLHttpRequest".equals(httpRequest.getHeader("X-Requested-With"))
+                && !CONFIG.getContent().isPrintHtml()
+                && !CONFIG.getContent().getCompressHtml().isCompressHtml()
+                && !HANDLER.hasRequestAuthBean();
+    }
+
+    private void checkStreamHtml() {
+        boolean streamHtml = CONFIG.getContent().isStreamHtml();
+        if (CONFIG.getContent().getUrlPatterns() != null) {
+            for (UrlPattern urlPattern : CONFIG.getContent().getUrlPatterns()) {
+                streamHtml |= Boolean.TRUE.equals(urlPattern.getStreamHtml())
+                        || Boolean.TRUE.equals(urlPattern.getFlushHead());
+            }
+        }
+        if (streamHtml && CONFIG.getContent().getCompressHtml().isCompressHtml()) {
+            LOGGER.log(Level.WARNING, "Configuration [stream-html] and [flush-head] are ignored while [compress-html] is enabled");
         }
     }
 
@@ -249,14 +385,26 @@ public final class FilterControl implements Filter {
             }
         }
 
+        // Stateless requests keep the reset flag out of the session, the page is reset case it
+        // refers to a session which is not valid anymore
+        if (CONFIG.getContent().isStateless(httpRequest.getServletPath())) {
+            if (ajaxPath == null && WebContext.isAjaxRequest() && httpRequest.getRequestedSessionId() != null
+                    && !httpRequest.isRequestedSessionIdValid()) {
+                response.addHeader("Reset-Ajax", "Session");
+            }
+            return;
+        }
+
         // Case session reset, place tag to force java script reset the page
         HttpSession session = httpRequest.getSession();
-        synchronized (session) {
-            if (session.getAttribute(SESSION_RESET_ATTR) != null) {
-                if (ajaxPath == null && WebContext.isAjaxRequest()) {
-                    response.addHeader("Reset-Ajax", "Session");
+        if (session.getAttribute(SESSION_RESET_ATTR) != null) {
+            synchronized (SessionLocks.getLock(session, SESSION_RESET_ATTR)) {
+                if (session.getAttribute(SESSION_RESET_ATTR) != null) {
+                    if (ajaxPath == null && WebContext.isAjaxRequest()) {
+                        response.addHeader("Reset-Ajax", "Session");
+                    }
+                    session.removeAttribute(SESSION_RESET_ATTR);
                 }
-                session.removeAttribute(SESSION_RESET_ATTR);
             }
         }
     }
@@ -269,45 +417,33 @@ public final class FilterControl implements Filter {
             return html;
         }
 
-        // Check if it is a valid html, if not just return the html
-        Matcher htmlMatcher = HTML_PATTERN.matcher(html);
-        if (!htmlMatcher.find()) {
-            return html;
-        }
-
-        html = completeHeader(httpRequest, htmlMatcher, html);
-        html = completeScripts(httpRequest, html);
-        html = completeVersions(httpRequest, html);
-        return html;
+        return HtmlPostProcessor.process(httpRequest, html, versionMatcher);
     }
 
-    private String completeHeader(HttpServletRequest httpRequest, Matcher htmlMatcher, String html) {
-        // Try to place the css as the first link in the head tag
-        Matcher startHeadMatcher = START_HEAD_PATTERN.matcher(html);
-        if (startHeadMatcher.find()) {
-            html = startHeadMatcher.replaceFirst("$1" + Matcher.quoteReplacement(headerStyles.toString()));
-        } else {
-            Head head = new Head();
-            head.addText(headerStyles);
-            html = htmlMatcher.replaceFirst("$1" + Matcher.quoteReplacement(head.getHtml().toString()));
-        }
+    static String getHeadContent(HttpServletRequest httpRequest) {
+        StringBuilder headBuilder = new StringBuilder();
 
         // Place the CSRF token as Meta tags
         String tokenName = (String) httpRequest.getAttribute(REQUEST_META_DATA_CSRF_TOKEN_NAME);
         if (tokenName != null) {
             String tokenValue = (String) httpRequest.getAttribute(REQUEST_META_DATA_CSRF_TOKEN_VALUE);
-            startHeadMatcher = START_HEAD_PATTERN.matcher(html);
 
             Tag csrfName = new Meta().addAttribute("name", CSRF_TOKEN_NAME).addAttribute("content", tokenName);
             Tag csrfToken = new Meta().addAttribute("name", CSRF_TOKEN_VALUE).addAttribute("content", tokenValue);
-            StringBuilder metaTags = csrfName.getHtml().append(csrfToken.getHtml());
-
-            html = startHeadMatcher.replaceFirst("$1" + Matcher.quoteReplacement(metaTags.toString()));
+            headBuilder.append(csrfName.getHtml()).append(csrfToken.getHtml());
         }
-        return html;
+        return headBuilder.append(headerStyles).toString();
+    }
+
+    static StringBuilder getHeaderScripts() {
+        return headerScripts;
     }
 
-    private String completeScripts(HttpServletRequest httpRequest, String html) {
+    static StringBuilder getHeaderPreloads() {
+        return headerPreloads;
+    }
+
+    static StringBuilder getPageScripts(HttpServletRequest httpRequest) {
         // Stand alone script with mapped exposed variables
         Script varScript = getExposeVarScripts(httpRequest);
 
@@ -317,7 +453,7 @@ public final class FilterControl implements Filter {
         // General page scripts executed when document is ready
         DocScript docScript = (DocScript) httpRequest.getAttribute(REQUEST_PAGE_DOC_SCRIPT_ATTR);
 
-        StringBuilder scriptBuilder = new StringBuilder(headerScripts);
+        StringBuilder scriptBuilder = new StringBuilder();
         if (varScript != null) {
             scriptBuilder.append(varScript.getHtml());
         }
@@ -327,34 +463,18 @@ public final class FilterControl implements Filter {
         if (docScript != null) {
             scriptBuilder.append(docScript.getHtml());
         }
+        return scriptBuilder;
+    }
 
-        // Place the scripts before the last script tag inside body
-        Matcher scriptMatcher = SCRIPT_BODY_PATTERN.matcher(html);
-        if (scriptMatcher.find()) {
-            return scriptMatcher.replaceFirst("$1" + Matcher.quoteReplacement(scriptBuilder.toString()) + "$2");
-        }
-
-        // Place the scripts before the end body tag
-        Matcher bodyMatcher = CLOSE_BODY_PATTERN.matcher(html);
-        if (!bodyMatcher.find()) {
-            throw new RuntimeException("HTML tag [body] could not be find. Please insert the body tag in your JSP");
-        }
-        return bodyMatcher.replaceFirst(Matcher.quoteReplacement(scriptBuilder.toString()) + "$1");
+    static boolean hasFileVersions() {
+        return !versionMatcher.isEmpty();
     }
 
-    private String completeVersions(HttpServletRequest httpRequest, String html) {
-        if (versionFilePatterns.isEmpty()) {
-            return html;
-        }
-        for (String version : versionFilePatterns.keySet()) {
-            Pattern filePattern = versionFilePatterns.get(version);
-            Matcher fileMatcher = filePattern.matcher(html);
-            html = fileMatcher.replaceAll("$1" + Matcher.quoteReplacement("?" + version));
-        }
-        return html;
+    static String completeVersions(String html) {
+        return versionMatcher.apply(html);
     }
 
-    private Script getFunctionScripts(HttpServletRequest httpRequest) {
+    private static Script getFunctionScripts(HttpServletRequest httpRequest) {
         String requestPath = httpRequest.getServletPath();
         List<AnnotatedFunction> annotatedFunctions = HANDLER.getAnnotatedFunctions(requestPath);
 
@@ -368,7 +488,7 @@ public final class FilterControl implements Filter {
         return (Script) httpRequest.getAttribute(REQUEST_PAGE_SCRIPT_ATTR);
     }
 
-    private Script getExposeVarScripts(HttpServletRequest httpRequest) {
+    private static Script getExposeVarScripts(HttpServletRequest httpRequest) {
         Map<String, Object> exposeVars = (Map) httpRequest.getAttribute(REQUEST_EXPOSE_VARS_ATTR);
         if (exposeVars == null || exposeVars.isEmpty()) {
             return null;
@@ -397,17 +517,84 @@ public final class FilterControl implements Filter {
             headerPath = contextPath + "/";
         }
 
-        Headers jsonHeaders = EXPRESSIONS.GSON.fromJson(convertResourceToString(FILTER_HEADERS), Headers.class);
+        // Bundled styles and scripts are fingerprinted by content so they can be cached as immutable
+        Map<String, AssetBundle> bundles = getAssetBundles();
+        if (!bundles.isEmpty()) {
+            String stylePath = getBundleUrl(headerPath, bundles.get(AssetBundle.STYLE_BUNDLE));
+            String scriptPath = getBundleUrl(headerPath, bundles.get(AssetBundle.SCRIPT_BUNDLE));
+
+            // Preload lets the browser fetch the script bundle while the page body is still parsed
+            headerStyles.append(String.format(BUNDLE_STYLE_TAG, stylePath));
+            headerStyles.append(String.format(BUNDLE_PRELOAD_TAG, scriptPath));
+            headerScripts.append(String.format(BUNDLE_SCRIPT_TAG, scriptPath));
+            return;
+        }
+
+        Headers jsonHeaders = getJsonHeaders();
         for (String style : jsonHeaders.getStyles()) {
             headerStyles.append(String.format(style, headerPath));
         }
         for (String script : jsonHeaders.getScripts()) {
             headerScripts.append(String.format(script, headerPath));
         }
+        for (String scriptPath : getHeaderPaths(jsonHeaders.getScripts())) {
+            headerPreloads.append(String.format(PRELOAD_SCRIPT_TAG, headerPath, scriptPath));
+        }
+    }
+
+    private static String getBundleUrl(String headerPath, AssetBundle bundle) {
+        return headerPath + bundle.getPath() + "?" + bundle.getHash();
+    }
+
+    static synchronized Map<String, AssetBundle> getAssetBundles() {
+        if (assetBundles == null) {
+            assetBundles = createAssetBundles();
+        }
+        return assetBundles;
+    }
+
+    private static Map<String, AssetBundle> createAssetBundles() {
+        Map<String, AssetBundle> bundles = new LinkedHashMap<>();
+        if (!CONFIG.getContent().isBundleAssets() || CONFIG.getContent().getAssetsUrl() != null) {
+            return bundles;
+        }
+
+        try {
+            Headers jsonHeaders = getJsonHeaders();
+            AssetBundle styleBundle = AssetBundle.create(AssetBundle.STYLE_BUNDLE, getHeaderPaths(jsonHeaders.getStyles()), true);
+            AssetBundle scriptBundle = AssetBundle.create(AssetBundle.SCRIPT_BUNDLE, getHeaderPaths(jsonHeaders.getScripts()), false);
+
+            bundles.put(styleBundle.getPath(), styleBundle);
+            bundles.put(scriptBundle.getPath(), scriptBundle);
+
+            for (AssetBundle bundle : bundles.values()) {
+                fileHashes.put(PATH_SEPARATOR + bundle.getPath(), bundle.getHash());
+            }
+            LOGGER.log(Level.INFO, "Framework styles and scripts bundled as [" + AssetBundle.BUNDLE_PATH + "]");
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Could not bundle framework styles and scripts, using them separately: " + ex.getMessage());
+            bundles.clear();
+        }
+        return bundles;
+    }
+
+    private static List<String> getHeaderPaths(List<String> headers) {
+        List<String> paths = new ArrayList<>();
+        for (String header : headers) {
+            Matcher matcher = HEADER_PATH_PATTERN.matcher(header);
+            if (matcher.find()) {
+                paths.add(matcher.group(1));
+            }
+        }
+        return paths;
+    }
+
+    private static Headers getJsonHeaders() {
+        return EXPRESSIONS.GSON.fromJson(convertResourceToString(FILTER_HEADERS), Headers.class);
     }
 
     @SuppressWarnings("resource")
-    private String convertResourceToString(String resource) {
+    private static String convertResourceToString(String resource) {
         InputStream is = FilterControl.class.getClassLoader().getResourceAsStream(resource);
         Scanner scanner = new Scanner(is).useDelimiter("\\A");
         return scanner.hasNext() ? scanner.next() : "";
@@ -420,29 +607,29 @@ public final class FilterControl implements Filter {
                         + CONFIG.getContent().getAssetsUrl() + "]");
             }
 
-            ServletContext context = config.getServletContext();
-            Set<String> libs = context.getResourcePaths(LIB_FILE_PATH);
-
-            if (libs == null || libs.isEmpty()) {
-                LOGGER.log(Level.SEVERE, "Could not find the JSmart library JAR file. Empty [" + LIB_FILE_PATH + "] resource folder.");
+            // Assets are served from the library JAR by AssetServlet case copy is disabled
+            boolean copyAssets = CONFIG.getContent().getAssetsUrl() == null && CONFIG.getContent().isCopyAssets();
+            if (!copyAssets && CONFIG.getContent().getWelcomeUrl() == null) {
                 return;
             }
 
-            String libFilePath = null;
-            for (String lib : libs) {
-                Matcher matcher = JAR_FILE_PATTERN.matcher(lib);
-                if (matcher.find()) {
-                    libFilePath = matcher.group();
-                    break;
+            ServletContext context = config.getServletContext();
+
+            // Bundled styles and scripts are copied along with the framework resources
+            if (copyAssets) {
+                for (AssetBundle bundle : getAssetBundles().values()) {
+                    initDirResources(context.getRealPath(PATH_SEPARATOR), bundle.getPath());
+                    copyFileResource(new ByteArrayInputStream(bundle.getContent()), bundle.getPath(), context);
+                    compressFileResource(new ByteArrayInputStream(bundle.getContent()), bundle.getPath(), context);
                 }
             }
 
+            String libFilePath = getLibFilePath(context);
             if (libFilePath == null) {
-                LOGGER.log(Level.SEVERE, "Could not find the JSmart library JAR file inside [" + LIB_FILE_PATH + "]");
                 return;
             }
 
-            Resources jsonResources = EXPRESSIONS.GSON.fromJson(convertResourceToString(FILTER_RESOURCES), Resources.class);
+            Resources jsonResources = getJsonResources();
 
             File libFile = new File(context.getRealPath(libFilePath));
             Dir content = Vfs.fromURL(libFile.toURI().toURL());
@@ -461,8 +648,8 @@ public final class FilterControl implements Filter {
                     }
                 }
 
-                // Do not copy anything if assets-url was provided
-                if (CONFIG.getContent().getAssetsUrl() != null) {
+                // Do not copy anything if assets-url was provided or copy is disabled
+                if (!copyAssets) {
                     continue;
                 }
 
@@ -473,6 +660,11 @@ public final class FilterControl implements Filter {
                     if (file.getRelativePath().startsWith(resourcePath)) {
                         initDirResources(context.getRealPath(PATH_SEPARATOR), file.getRelativePath());
                         copyFileResource(file.openInputStream(), file.getRelativePath(), context);
+
+                        // Precompressed sidecar file served by AssetFilter
+                        if (isCompressibleFile(file.getRelativePath())) {
+                            compressFileResource(file.openInputStream(), file.getRelativePath(), context);
+                        }
                         break;
                     }
                 }
@@ -482,6 +674,44 @@ public final class FilterControl implements Filter {
         }
     }
 
+    static String getLibFilePath(ServletContext context) {
+        Set<String> libs = context.getResourcePaths(LIB_FILE_PATH);
+
+        if (libs == null || libs.isEmpty()) {
+            LOGGER.log(Level.SEVERE, "Could not find the JSmart library JAR file. Empty [" + LIB_FILE_PATH + "] resource folder.");
+            return null;
+        }
+
+        for (String lib : libs) {
+            Matcher matcher = JAR_FILE_PATTERN.matcher(lib);
+            if (matcher.find()) {
+                return matcher.group();
+            }
+        }
+
+        LOGGER.log(Level.SEVERE, "Could not find the JSmart library JAR file inside [" + LIB_FILE_PATH + "]");
+        return null;
+    }
+
+    static Resources getJsonResources() {
+        return EXPRESSIONS.GSON.fromJson(convertResourceToString(FILTER_RESOURCES), Resources.class);
+    }
+
+    static boolean isCompressibleFile(String path) {
+        return GZIP_FILE_PATTERN.matcher(path).matches();
+    }
+
+    private void compressFileResource(InputStream is, String relativePath, ServletContext context) throws Exception {
+        String realFilePath = new File(context.getRealPath(PATH_SEPARATOR)).getPath() + PATH_SEPARATOR + relativePath;
+
+        GZIPOutputStream gos = new GZIPOutputStream(new FileOutputStream(realFilePath + GZIP_FILE_EXTENSION), STREAM_BUFFER) {{
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }};
+        IOUtils.copy(is, gos);
+        gos.close();
+        is.close();
+    }
+
     private void initDirResources(String currentPath, String relativePath) {
         if (relativePath.contains(PATH_SEPARATOR)) {
             String[] paths = relativePath.split(PATH_SEPARATOR);
@@ -513,19 +743,30 @@ public final class FilterControl implements Filter {
             File rootFile = new File(context.getRealPath(ROOT_PATH));
             Dir content = Vfs.fromURL(rootFile.toURI().toURL());
 
-            Map<String, StringBuilder> patternBuilders = new HashMap<>();
+            List<Vfs.File> hashFiles = new ArrayList<>();
             Iterator<Vfs.File> files = content.getFiles().iterator();
 
             while (files.hasNext()) {
                 Vfs.File file = files.next();
                 String relativePath = file.getRelativePath();
 
+                // Bundles are already fingerprinted by their content
+                if (relativePath.startsWith(AssetBundle.BUNDLE_PATH)) {
+                    continue;
+                }
+
                 FileVersion fileVersion = CONFIG.getContent().getFileVersion(relativePath);
                 if (fileVersion != null && !fileVersion.isOnExcludeFolders(relativePath)) {
                     if (!fileVersion.isIncludeMinified() && fileVersion.isMinifiedFile(relativePath)) {
                         continue;
                     }
 
+                    // Version based on file content is calculated in parallel after listing files
+                    if (fileVersion.isHash()) {
+                        hashFiles.add(file);
+                        continue;
+                    }
+
                     String patternVersion = automaticVersion;
                     if (!fileVersion.isAuto()) {
                         patternVersion = fileVersion.getVersion();
@@ -534,27 +775,62 @@ public final class FilterControl implements Filter {
                         continue;
                     }
 
-                    StringBuilder patternBuilder = patternBuilders.get(patternVersion);
-                    if (patternBuilder == null) {
-                        patternBuilder = new StringBuilder("(");
-                        patternBuilders.put(patternVersion, patternBuilder);
-                    }
-                    if (patternBuilder.length() > 1) {
-                        patternBuilder.append("|");
-                    }
-                    patternBuilder.append(relativePath.replace(".", "\\."));
+                    versionMatcher.add(relativePath, patternVersion);
                 }
             }
-
-            for (String version : patternBuilders.keySet()) {
-                StringBuilder patternBuilder = patternBuilders.get(version).append(")");
-                versionFilePatterns.put(version, Pattern.compile(patternBuilder.toString(), Pattern.DOTALL));
-            }
+            hashResources(hashFiles);
         } catch (Exception ex) {
             LOGGER.log(Level.SEVERE, ex.getMessage());
         }
     }
 
+    private void hashResources(List<Vfs.File> hashFiles) throws Exception {
+        if (hashFiles.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<String>> hashes = new ArrayList<>();
+            for (final Vfs.File file : hashFiles) {
+                hashes.add(executor.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() throws Exception {
+                        InputStream is = file.openInputStream();
+                        try {
+                            return DigestUtils.sha256Hex(is).substring(0, FILE_HASH_LENGTH);
+                        } finally {
+                            is.close();
+                        }
+                    }
+                }));
+            }
+
+            for (int i = 0; i < hashFiles.size(); i++) {
+                String relativePath = hashFiles.get(i).getRelativePath();
+                String hash = hashes.get(i).get();
+
+                versionMatcher.add(relativePath, hash);
+                fileHashes.put(PATH_SEPARATOR + relativePath, hash);
+            }
+            LOGGER.log(Level.INFO, "Content hash versioning applied to [" + hashFiles.size() + "] files");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns the content hash calculated on startup for the file path relative to the context path,
+     * case the file matches a file version configured with hash attribute.
+     *
+     * @param path file path relative to the context path.
+     * @return content hash of the file or null case the file is not versioned by content.
+     */
+    public static String getFileHash(String path) {
+        return path != null ? fileHashes.get(path) : null;
+    }
+
     private String getAutomaticResourceVersion(FilterConfig config) {
         try {
             Properties manifestProperties = new Properties();
@@ -582,10 +858,12 @@ public final class FilterControl implements Filter {
         bis.close();
     }
 
-    private class WebFilterResponseWrapper extends HttpServletResponseWrapper {
+    class WebFilterResponseWrapper extends HttpServletResponseWrapper {
 
         private WebFilterOutputStream outputStream = new WebFilterOutputStream();
 
+        private PrintWriter writer;
+
         public WebFilterResponseWrapper(HttpServletResponse servletResponse) {
             super(servletResponse);
         }
@@ -597,101 +875,189 @@ public final class FilterControl implements Filter {
 
         @Override
         public PrintWriter getWriter() throws IOException {
-            return new PrintWriter(outputStream.getWriter(), true);
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()), true);
+            }
+            return writer;
         }
 
         @Override
         public void reset() {
+            writer = null;
             outputStream.reset();
         }
 
         @Override
         public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
             outputStream.flush();
         }
 
+        public boolean hasExpressionMarker() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return outputStream.hasExpressionMarker();
+        }
+
+        public int getContentLength() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return outputStream.size();
+        }
+
         public void close() throws IOException {
+            writer = null;
             outputStream.close();
         }
 
         @Override
         public String toString() {
-            return outputStream.toString();
+            if (writer != null) {
+                writer.flush();
+            }
+            return outputStream.toString(Charset.forName(getCharacterEncoding()));
         }
     }
 
-    private class WebFilterOutputStream extends ServletOutputStream {
+    private class WebFilterStreamResponseWrapper extends HttpServletResponseWrapper {
 
-        private StringWriter writer = new StringWriter();
+        private HtmlStreamOutputStream outputStream;
 
-        private WriteListener writeListener;
+        private PrintWriter writer;
+
+        public WebFilterStreamResponseWrapper(HttpServletRequest servletRequest, HttpServletResponse servletResponse) {
+            super(servletResponse);
+            boolean flushHead = CONFIG.getContent().isFlushHead(servletRequest.getServletPath());
+            outputStream = new HtmlStreamOutputStream(servletRequest, servletResponse, flushHead);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return outputStream;
+        }
 
-        public StringWriter getWriter() {
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+            }
             return writer;
         }
 
+        @Override
+        public void setContentLength(int length) {
+            // Content is changed while streaming so its length is not known
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            // Content is changed while streaming so its length is not known
+        }
+
+        @Override
         public void reset() {
-            writer = new StringWriter();
+            super.reset();
+            resetBuffer();
         }
 
         @Override
-        public void write(int b) throws IOException {
-            try {
-                writer.write(b);
-                if (writeListener != null) {
-                    writeListener.onWritePossible();
-                }
-            } catch (IOException ex) {
-                if (writeListener != null) {
-                    writeListener.onError(ex);
-                }
-                throw ex;
+        public void resetBuffer() {
+            super.resetBuffer();
+            outputStream.reset();
+            writer = null;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            outputStream.flush();
+        }
+
+        public void flushWriter() {
+            if (writer != null) {
+                writer.flush();
             }
         }
 
+        public void finish() throws IOException {
+            flushWriter();
+            outputStream.finish();
+        }
+
+        public void finishRaw() throws IOException {
+            flushWriter();
+            outputStream.finishRaw();
+        }
+    }
+
+    private class WebFilterOutputStream extends ServletOutputStream {
+
+        private PooledByteBuffer buffer = new PooledByteBuffer();
+
+        private WriteListener writeListener;
+
+        private boolean expressionMarker;
+
+        private int lastByte;
+
+        public void reset() {
+            buffer.release();
+            expressionMarker = false;
+            lastByte = 0;
+        }
+
+        public boolean hasExpressionMarker() {
+            return expressionMarker;
+        }
+
+        public int size() {
+            return buffer.size();
+        }
+
         @Override
-        public void write(byte[] b) throws IOException {
-            try {
-                writer.write(new String(b));
-                if (writeListener != null) {
-                    writeListener.onWritePossible();
-                }
-            } catch (IOException ex) {
-                if (writeListener != null) {
-                    writeListener.onError(ex);
-                }
-                throw ex;
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            checkExpressionMarker(b);
+            if (writeListener != null) {
+                writeListener.onWritePossible();
             }
         }
 
         @Override
         public void write(byte[] b, int off, int len) throws IOException {
-            try {
-                writer.write(new String(b), off, len);
-                if (writeListener != null) {
-                    writeListener.onWritePossible();
-                }
-            } catch (IOException ex) {
-                if (writeListener != null) {
-                    writeListener.onError(ex);
-                }
-                throw ex;
+            buffer.write(b, off, len);
+            for (int i = off; i < off + len && !expressionMarker; i++) {
+                checkExpressionMarker(b[i]);
+            }
+            if (writeListener != null) {
+                writeListener.onWritePossible();
             }
         }
 
         @Override
         public void flush() throws IOException {
-            writer.flush();
+            // DO NOTHING
+        }
+
+        // Track the output expression start written by the page so OutputFilter can skip when there is none
+        private void checkExpressionMarker(int b) {
+            if (b == '{' && lastByte == '@') {
+                expressionMarker = true;
+            }
+            lastByte = b;
         }
 
         @Override
         public void close() throws IOException {
-            writer.close();
+            buffer.release();
         }
 
-        @Override
-        public String toString() {
-            return writer.toString();
+        public String toString(Charset charset) {
+            return buffer.toString(charset);
         }
 
         @Override
@@ -0,0 +1,117 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import com.jsmartframework.web.tag.html.Head;
+
+import javax.servlet.http.HttpServletRequest;
+
+final class HtmlPostProcessor {
+
+    private static final String HTML = "html";
+
+    private static final String HEAD = "head";
+
+    private static final String BODY = "body";
+
+    private static final String SCRIPT = "script";
+
+    private static final String CLOSE_BODY = "/body";
+
+    private HtmlPostProcessor() {
+        // DO NOTHING
+    }
+
+    // Place the head content, the scripts and the file versions on a single scan over the html
+    static String process(HttpServletRequest httpRequest, String html, VersionPathMatcher versionMatcher) {
+        int htmlStart = indexOfTag(html, HTML);
+        if (htmlStart < 0) {
+            return html;
+        }
+
+        boolean headDone = false;
+        boolean bodyFound = false;
+        boolean scriptsDone = false;
+
+        StringBuilder builder = new StringBuilder(html.length() + 4096);
+        builder.append(html, 0, htmlStart);
+
+        for (int i = htmlStart; i < html.length(); ) {
+            char c = html.charAt(i);
+
+            if (c == '<' && !scriptsDone) {
+                if (!headDone && !bodyFound && isTag(html, i, HEAD)) {
+                    int tagEnd = html.indexOf('>', i) + 1;
+                    if (tagEnd > 0) {
+                        String headContent = versionMatcher.apply(FilterControl.getHeadContent(httpRequest));
+                        builder.append(html, i, tagEnd).append(headContent);
+                        headDone = true;
+                        i = tagEnd;
+                        continue;
+                    }
+                } else if (!bodyFound && isTag(html, i, BODY)) {
+                    if (!headDone) {
+                        String headContent = versionMatcher.apply(FilterControl.getHeadContent(httpRequest));
+                        builder.append(new Head().addText(headContent).getHtml());
+                        headDone = true;
+                    }
+                    bodyFound = true;
+
+                } else if (bodyFound && (isTag(html, i, SCRIPT) || isTag(html, i, CLOSE_BODY))) {
+                    StringBuilder scripts = new StringBuilder(FilterControl.getHeaderScripts())
+                            .append(FilterControl.getPageScripts(httpRequest));
+                    builder.append(versionMatcher.apply(scripts.toString()));
+                    scriptsDone = true;
+                }
+            }
+
+            int end = versionMatcher.isEmpty() ? -1 : versionMatcher.appendMatch(html, i, builder);
+            if (end > 0) {
+                i = end;
+            } else {
+                builder.append(c);
+                i++;
+            }
+        }
+
+        if (!scriptsDone) {
+            throw new RuntimeException("HTML tag [body] could not be find. Please insert the body tag in your JSP");
+        }
+        return builder.toString();
+    }
+
+    private static int indexOfTag(String html, String name) {
+        for (int i = html.indexOf('<'); i >= 0; i = html.indexOf('<', i + 1)) {
+            if (isTag(html, i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isTag(String html, int tagStart, String name) {
+        int index = tagStart + 1;
+        if (index + name.length() >= html.length() || !html.regionMatches(true, index, name, 0, name.length())) {
+            return false;
+        }
+        char next = html.charAt(index + name.length());
+        return next == '>' || next == '/' || Character.isWhitespace(next);
+    }
+
+}
@@ -0,0 +1,444 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
+
+import com.jsmartframework.web.tag.html.Head;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+final class HtmlStreamOutputStream extends ServletOutputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(HtmlStreamOutputStream.class.getPackage().getName());
+
+    private static final int MAX_EXPRESSION = 1024;
+
+    private static final int MAX_SEGMENT = 8192;
+
+    private static final int MAX_TAIL = 8192;
+
+    private static final byte[] HTML = "html".getBytes();
+
+    private static final byte[] HEAD = "head".getBytes();
+
+    private static final byte[] BODY = "body".getBytes();
+
+    private static final byte[] SCRIPT = "script".getBytes();
+
+    private static final byte[] CLOSE_BODY = "/body".getBytes();
+
+    private final HttpServletRequest request;
+
+    private final HttpServletResponse response;
+
+    private final Charset charset;
+
+    private final boolean flushHead;
+
+    private OutputStream output;
+
+    private byte[] expression = new byte[MAX_EXPRESSION];
+
+    private int expressionLength;
+
+    private byte[] segment = new byte[MAX_SEGMENT];
+
+    private int segmentLength;
+
+    private ByteArrayOutputStream tail;
+
+    private boolean htmlFound;
+
+    private boolean headDone;
+
+    private boolean bodyFound;
+
+    private boolean headerScriptsDone;
+
+    private boolean pageScriptsDone;
+
+    private boolean closed;
+
+    private WriteListener writeListener;
+
+    HtmlStreamOutputStream(HttpServletRequest request, HttpServletResponse response, boolean flushHead) {
+        this.request = request;
+        this.response = response;
+        this.flushHead = flushHead;
+        this.charset = Charset.forName(response.getCharacterEncoding());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        try {
+            evaluate(b & 0xFF);
+            if (writeListener != null) {
+                writeListener.onWritePossible();
+            }
+        } catch (IOException ex) {
+            if (writeListener != null) {
+                writeListener.onError(ex);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        try {
+            for (int i = off; i < off + len; i++) {
+                evaluate(b[i] & 0xFF);
+            }
+            if (writeListener != null) {
+                writeListener.onWritePossible();
+            }
+        } catch (IOException ex) {
+            if (writeListener != null) {
+                writeListener.onError(ex);
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (output != null) {
+            output.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+    }
+
+    @Override
+    public boolean isReady() {
+        return !closed;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    boolean isHtml() {
+        return htmlFound;
+    }
+
+    void reset() {
+        expressionLength = 0;
+        segmentLength = 0;
+        tail = null;
+        htmlFound = headDone = bodyFound = headerScriptsDone = pageScriptsDone = false;
+    }
+
+    // Page scripts are only known after request beans are finalized, so they are written here
+    void finish() throws IOException {
+        flushExpression();
+        if (tail != null) {
+            flushTail();
+        }
+        writeSegment(0, segmentLength);
+        segmentLength = 0;
+
+        if (htmlFound && !pageScriptsDone) {
+            LOGGER.log(Level.SEVERE, "HTML tag [body] could not be find. Please insert the body tag in your JSP");
+            writeHeaderScripts();
+            writePageScripts();
+        }
+        flush();
+    }
+
+    void finishRaw() throws IOException {
+        if (expressionLength > 0) {
+            getOutput().write(expression, 0, expressionLength);
+            expressionLength = 0;
+        }
+        if (segmentLength > 0) {
+            getOutput().write(segment, 0, segmentLength);
+            segmentLength = 0;
+        }
+        if (tail != null) {
+            tail.writeTo(getOutput());
+            tail = null;
+        }
+        flush();
+    }
+
+    private void evaluate(int b) throws IOException {
+        if (expressionLength == 0) {
+            if (b == '@') {
+                expression[expressionLength++] = (byte) b;
+            } else {
+                process(b);
+            }
+            return;
+        }
+
+        if (expressionLength == 1) {
+            if (b == '{') {
+                expression[expressionLength++] = (byte) b;
+            } else {
+                flushExpression();
+                evaluate(b);
+            }
+            return;
+        }
+
+        // First expression character can be anything but line break, the next ones cannot contain
+        // the expression delimiters, the same rule applied by ExpressionHandler.EL_PATTERN
+        boolean first = expressionLength == 2;
+        if ((first && (b == '\n' || b == '\r')) || (!first && (b == '@' || b == '{'))
+                || expressionLength == MAX_EXPRESSION) {
+            flushExpression();
+            evaluate(b);
+            return;
+        }
+
+        expression[expressionLength++] = (byte) b;
+        if (b == '}' && !first) {
+            String expr = new String(expression, 0, expressionLength, charset);
+            expressionLength = 0;
+
+            Object value = EXPRESSIONS.getExpressionValue(expr);
+            byte[] bytes = (value != null ? value.toString() : "").getBytes(charset);
+            for (int i = 0; i < bytes.length; i++) {
+                process(bytes[i] & 0xFF);
+            }
+        }
+    }
+
+    private void flushExpression() throws IOException {
+        int length = expressionLength;
+        expressionLength = 0;
+        for (int i = 0; i < length; i++) {
+            process(expression[i] & 0xFF);
+        }
+    }
+
+    private void process(int b) throws IOException {
+        if (tail != null) {
+            tail.write(b);
+            if (tail.size() > MAX_TAIL) {
+                flushTail();
+            }
+            return;
+        }
+
+        segment[segmentLength++] = (byte) b;
+        if (b == '>') {
+            processSegment();
+        } else if (segmentLength == MAX_SEGMENT) {
+            cutSegment();
+        }
+    }
+
+    // Segments end on tag close char so the framework content can be placed around the tags
+    private void processSegment() throws IOException {
+        int tagStart = lastIndexOf('<');
+        if (tagStart < 0 || pageScriptsDone) {
+            writeSegment(0, segmentLength);
+            segmentLength = 0;
+            return;
+        }
+
+        if (isTag(tagStart, HTML)) {
+            htmlFound = true;
+            writeSegment(0, segmentLength);
+
+        } else if (htmlFound && !headDone && isTag(tagStart, HEAD)) {
+            writeSegment(0, segmentLength);
+            writeText(getHeadContent());
+            headDone = true;
+
+        } else if (htmlFound && !bodyFound && isTag(tagStart, BODY)) {
+            writeSegment(0, tagStart);
+            if (!headDone) {
+                Head head = new Head();
+                head.addText(getHeadContent());
+                writeText(head.getHtml().toString());
+                headDone = true;
+            }
+            writeSegment(tagStart, segmentLength);
+            bodyFound = true;
+
+            // Send the head so the browser fetches styles and scripts while the body is rendered
+            if (flushHead) {
+                flush();
+                response.flushBuffer();
+            }
+
+        } else if (bodyFound && !headerScriptsDone && isTag(tagStart, SCRIPT)) {
+            // Unlike the buffered html, page scripts cannot be placed here with the header scripts because the
+            // page is still being rendered, so they are placed before the body close tag. Inline scripts on the
+            // body must not use the exposed vars or functions before the document is ready when streaming
+            writeSegment(0, tagStart);
+            writeHeaderScripts();
+            writeSegment(tagStart, segmentLength);
+
+        } else if (bodyFound && isTag(tagStart, CLOSE_BODY)) {
+            writeSegment(0, tagStart);
+            tail = new ByteArrayOutputStream(MAX_TAIL);
+            tail.write(segment, tagStart, segmentLength - tagStart);
+
+        } else {
+            writeSegment(0, segmentLength);
+        }
+        segmentLength = 0;
+    }
+
+    private void cutSegment() throws IOException {
+        // Keep the last tag start on segment to be checked when it gets closed, the content before it
+        // ends on a tag boundary so the file versions can be applied to it
+        int cut = lastIndexOf('<');
+        if (cut > 0) {
+            writeSegment(0, cut);
+        } else {
+            // Long texts and tags are cut on a char boundary and written without file versions,
+            // which are only applied on tag boundaries so a path is never split between two writes
+            cut = getCharBoundary();
+            getOutput().write(segment, 0, cut);
+        }
+        System.arraycopy(segment, cut, segment, 0, segmentLength - cut);
+        segmentLength -= cut;
+    }
+
+    // Index after the last complete char on segment, so the remaining bytes start with a whole char
+    private int getCharBoundary() {
+        if (!StandardCharsets.UTF_8.equals(charset)) {
+            for (int i = segmentLength; i > 0; i--) {
+                if (segment[i - 1] >= 0) {
+                    return i;
+                }
+            }
+            return segmentLength;
+        }
+
+        // UTF-8 continuation bytes are 10xxxxxx and the lead byte carries the sequence length
+        int lead = segmentLength - 1;
+        while (lead > 0 && (segment[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        int b = segment[lead] & 0xFF;
+        int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+        return lead == 0 || lead + length <= segmentLength ? segmentLength : lead;
+    }
+
+    // Content after the body close tag goes back through the segment, which writes it on tag and char boundaries
+    private void flushTail() throws IOException {
+        byte[] content = tail.toByteArray();
+        tail = null;
+        writeHeaderScripts();
+        writePageScripts();
+        for (int i = 0; i < content.length; i++) {
+            process(content[i] & 0xFF);
+        }
+    }
+
+    private String getHeadContent() {
+        String headContent = FilterControl.getHeadContent(request);
+        if (flushHead) {
+            headContent += FilterControl.getHeaderPreloads();
+        }
+        return headContent;
+    }
+
+    private void writeHeaderScripts() throws IOException {
+        if (!headerScriptsDone) {
+            headerScriptsDone = true;
+            writeText(FilterControl.getHeaderScripts().toString());
+        }
+    }
+
+    private void writePageScripts() throws IOException {
+        if (!pageScriptsDone) {
+            pageScriptsDone = true;
+            writeText(FilterControl.getPageScripts(request).toString());
+        }
+    }
+
+    private void writeSegment(int start, int end) throws IOException {
+        if (end > start) {
+            writeVersioned(segment, start, end - start);
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        if (!text.isEmpty()) {
+            getOutput().write(FilterControl.completeVersions(text).getBytes(charset));
+        }
+    }
+
+    private void writeVersioned(byte[] bytes, int off, int len) throws IOException {
+        if (htmlFound && FilterControl.hasFileVersions()) {
+            String text = new String(bytes, off, len, charset);
+            getOutput().write(FilterControl.completeVersions(text).getBytes(charset));
+        } else {
+            getOutput().write(bytes, off, len);
+        }
+    }
+
+    private int lastIndexOf(int b) {
+        for (int i = segmentLength - 1; i >= 0; i--) {
+            if (segment[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isTag(int tagStart, byte[] name) {
+        int index = tagStart + 1;
+        if (index + name.length >= segmentLength) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            int b = segment[index + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != name[i]) {
+                return false;
+            }
+        }
+        int next = segment[index + name.length];
+        return next == '>' || next == '/' || Character.isWhitespace(next);
+    }
+
+    private OutputStream getOutput() throws IOException {
+        if (output == null) {
+            output = response.getOutputStream();
+        }
+        return output;
+    }
+
+}
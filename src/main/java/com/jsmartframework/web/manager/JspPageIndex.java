@@ -0,0 +1,293 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.config.Constants.ENCODING;
+
+import com.jsmartframework.web.config.Constants;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Build time indexer of the bean names, element ids and includes referenced by the JSP pages, so the
+ * pages do not need to be scanned when the application starts.
+ * <br>
+ * Usage: {@code JspPageIndex <webapp dir> <index file> [page paths]}, where the index file must be
+ * packaged as {@code META-INF/jsmart/page.index} on the classpath. When page paths relative to the
+ * webapp dir are informed only those pages are indexed again and merged into the existing index.
+ */
+public final class JspPageIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(JspPageIndex.class.getPackage().getName());
+
+    static final Pattern INCLUDE_PATTERN = Pattern.compile("<%@*.include.*file=\"(.*)\".*%>");
+
+    private static final Pattern PAGE_PATTERN = Pattern.compile(ExpressionHandler.EL_PATTERN.pattern()
+            + "|" + INCLUDE_PATTERN.pattern() + "|" + ExpressionHandler.ID_PATTERN.pattern()
+            + "|" + ExpressionHandler.JSP_PATTERN.pattern());
+
+    private static final String PAGE = "page ";
+
+    static final String NAME = "name ";
+
+    static final String ID = "id ";
+
+    static final String INCLUDE = "include ";
+
+    static final String CONTENT = "content ";
+
+    private JspPageIndex() {
+        // DO NOTHING
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JspPageIndex <webapp dir> <index file> [page paths]");
+            System.exit(1);
+        }
+
+        File webappDir = new File(args[0]);
+        File indexFile = new File(args[1]);
+        Map<String, Set<String>> pages = new TreeMap<>();
+
+        if (args.length > 2 && indexFile.exists()) {
+            try (InputStream is = new FileInputStream(indexFile)) {
+                pages.putAll(read(is));
+            }
+            for (int i = 2; i < args.length; i++) {
+                indexPage(webappDir, new File(webappDir, args[i]), pages);
+            }
+        } else {
+            indexDir(webappDir, webappDir, pages);
+        }
+
+        indexFile.getParentFile().mkdirs();
+        try (OutputStream os = new FileOutputStream(indexFile)) {
+            write(pages, os);
+        }
+        System.out.println("Indexed [" + pages.size() + "] JSP pages into [" + indexFile + "]");
+    }
+
+    private static void indexDir(File webappDir, File dir, Map<String, Set<String>> pages) throws IOException {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    indexDir(webappDir, file, pages);
+                } else {
+                    indexPage(webappDir, file, pages);
+                }
+            }
+        }
+    }
+
+    private static void indexPage(File webappDir, File file, Map<String, Set<String>> pages) throws IOException {
+        String name = file.getName();
+        if (!name.endsWith(".jsp") && !name.endsWith(".jspf") && !name.endsWith(".html")) {
+            return;
+        }
+
+        String path = file.getCanonicalPath().substring(webappDir.getCanonicalPath().length()).replace(File.separatorChar, '/');
+        if (!file.exists()) {
+            pages.remove(path);
+            return;
+        }
+        try (InputStream is = new FileInputStream(file)) {
+            Set<String> references = scan(is, path);
+            references.add(getContentReference(file));
+            pages.put(path, references);
+        }
+    }
+
+    // Pages changed on disk after being indexed, e.g. edited on an exploded deployment, must be scanned again.
+    // Size and hash are compared instead of modified time, which copied and exploded deployments do not keep
+    static boolean isStale(Set<String> references, String realPath) {
+        if (realPath == null) {
+            return false;
+        }
+        File file = new File(realPath);
+        if (!file.exists()) {
+            return false;
+        }
+        for (String reference : references) {
+            if (reference.startsWith(CONTENT)) {
+                try {
+                    // Size is checked first so only pages with the same size are hashed
+                    return !reference.startsWith(CONTENT + file.length() + " ")
+                            || !reference.equals(getContentReference(file));
+                } catch (IOException ex) {
+                    return true;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String getContentReference(File file) throws IOException {
+        try (InputStream is = new FileInputStream(file)) {
+            return CONTENT + file.length() + " " + DigestUtils.md5Hex(is);
+        }
+    }
+
+    // References are kept in the order found on the page, followed by its includes
+    static Set<String> scan(InputStream is, String path) {
+        Set<String> references = new LinkedHashSet<>();
+        Set<String> includes = new LinkedHashSet<>();
+        Scanner fileScanner = new Scanner(is, ENCODING);
+
+        try {
+            String lineScan;
+            while ((lineScan = fileScanner.findWithinHorizon(PAGE_PATTERN, 0)) != null) {
+
+                boolean hasInclude = false;
+                Matcher matcher = INCLUDE_PATTERN.matcher(lineScan);
+
+                while (matcher.find()) {
+                    hasInclude = true;
+                    includes.add(matcher.group(1));
+                }
+
+                if (hasInclude) {
+                    continue;
+                }
+
+                matcher = ExpressionHandler.EL_PATTERN.matcher(lineScan);
+                while (matcher.find()) {
+                    addNames(references, matcher.group(1));
+                }
+
+                matcher = ExpressionHandler.JSP_PATTERN.matcher(lineScan);
+                while (matcher.find()) {
+                    addNames(references, matcher.group(1));
+                }
+
+                matcher = ExpressionHandler.ID_PATTERN.matcher(lineScan);
+                while (matcher.find()) {
+                    references.add(ID + matcher.group(1));
+                }
+            }
+        } finally {
+            fileScanner.close();
+        }
+
+        String includeOwner = path.substring(0, path.lastIndexOf(Constants.PATH_SEPARATOR) + 1);
+        for (String include : includes) {
+            references.add(INCLUDE + getRelativeIncludePath(includeOwner, include));
+        }
+        return references;
+    }
+
+    private static void addNames(Set<String> references, String expression) {
+        for (String name : expression.split(Constants.SEPARATOR_REGEX)) {
+            if (!name.trim().isEmpty()) {
+                references.add(NAME + name.trim());
+            }
+        }
+    }
+
+    static String getRelativeIncludePath(String includeOwner, String include) {
+        int index = 0;
+        int pathSeparators = 0;
+
+        while (index != -1) {
+            index = include.indexOf(Constants.PREVIOUS_PATH, index);
+            if (index != -1) {
+                pathSeparators++;
+                index += Constants.PREVIOUS_PATH.length();
+            }
+        }
+        if (pathSeparators != 0) {
+            String[] ownerPath = includeOwner.split(Constants.PATH_SEPARATOR);
+            if (ownerPath.length > pathSeparators) {
+                includeOwner = includeOwner.substring(0, includeOwner.lastIndexOf(ownerPath[ownerPath.length - pathSeparators]));
+            } else {
+                includeOwner = Constants.PATH_SEPARATOR;
+            }
+        }
+        if (include.startsWith(Constants.PATH_SEPARATOR)) {
+            include = include.replaceFirst(Constants.PATH_SEPARATOR, "");
+        }
+        return includeOwner + include.replace(Constants.PREVIOUS_PATH, "");
+    }
+
+    static Map<String, Set<String>> read(InputStream is) throws IOException {
+        Map<String, Set<String>> pages = new LinkedHashMap<>();
+        Set<String> references = null;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(is, ENCODING));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith(PAGE)) {
+                pages.put(line.substring(PAGE.length()), references = new LinkedHashSet<>());
+            } else if (references != null && !line.isEmpty()) {
+                references.add(line);
+            }
+        }
+        return pages;
+    }
+
+    static void write(Map<String, Set<String>> pages, OutputStream os) throws IOException {
+        Writer writer = new OutputStreamWriter(os, ENCODING);
+        for (Map.Entry<String, Set<String>> page : pages.entrySet()) {
+            writer.write(PAGE + page.getKey() + "\n");
+            for (String reference : page.getValue()) {
+                writer.write(reference + "\n");
+            }
+        }
+        writer.flush();
+    }
+
+    // Pages indexed at build time, empty when the application was not indexed. The returned map is
+    // mutable so the pages scanned on startup can be kept along with the indexed ones
+    static Map<String, Set<String>> load() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try (InputStream is = classLoader.getResourceAsStream(Constants.PAGE_INDEX_PATH)) {
+            if (is != null) {
+                return read(is);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "JSP page index could not be read: " + ex.getMessage());
+        }
+        return new HashMap<>();
+    }
+
+}
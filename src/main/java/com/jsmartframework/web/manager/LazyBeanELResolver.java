@@ -0,0 +1,80 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
+
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+
+final class LazyBeanELResolver extends ELResolver {
+
+    // Page beans pending on the current request are only created when an expression reaches them
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        Object bean = resolveBean(base, property);
+        if (bean != null) {
+            context.setPropertyResolved(true);
+        }
+        return bean;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        Object bean = resolveBean(base, property);
+        if (bean != null) {
+            context.setPropertyResolved(true);
+            return bean.getClass();
+        }
+        return null;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+        // Creating the bean is enough, the scoped attribute resolver is the one replacing it
+        resolveBean(base, property);
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        return false;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return base == null ? String.class : null;
+    }
+
+    private Object resolveBean(Object base, Object property) {
+        if (base == null && property instanceof String) {
+            return HANDLER.resolveLazyBean((String) property);
+        }
+        return null;
+    }
+
+}
@@ -18,9 +18,13 @@
 
 package com.jsmartframework.web.manager;
 
+import static com.jsmartframework.web.config.Constants.REQUEST_STREAM_HTML_ATTR;
 import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 
 import javax.servlet.Filter;
@@ -57,23 +61,46 @@ public final class OutputFilter implements Filter {
             return;
         }
 
-        boolean foundRegex = false;
+        // Case response is streamed the expressions were already evaluated while writing
+        if (httpRequest.getAttribute(REQUEST_STREAM_HTML_ATTR) != null) {
+            return;
+        }
+
+        // Case the page did not write any output expression there is nothing to evaluate
+        if (responseWrapper instanceof FilterControl.WebFilterResponseWrapper
+                && !((FilterControl.WebFilterResponseWrapper) responseWrapper).hasExpressionMarker()) {
+            return;
+        }
+
         String html = responseWrapper.toString();
 
         Matcher outputMatcher = ExpressionHandler.EL_PATTERN.matcher(html);
-        while (outputMatcher.find()) {
-            foundRegex = true;
-            String expression = outputMatcher.group();
-            Object value = EXPRESSIONS.getExpressionValue(expression);
-            html = html.replace(expression, value != null ? value.toString() : "");
+        if (!outputMatcher.find()) {
+            return;
         }
 
-        // Write our modified text to the real response
-        if (foundRegex) {
-            responseWrapper.reset();
-            responseWrapper.setContentLength(html.getBytes().length);
-            responseWrapper.getWriter().write(html);
-        }
+        // Write literal and expression segments in one pass, evaluating each distinct expression once.
+        // Content length is set by FilterControl once the final HTML is generated
+        responseWrapper.reset();
+        PrintWriter writer = responseWrapper.getWriter();
+
+        int literalStart = 0;
+        Map<String, String> values = new HashMap<>();
+        do {
+            writer.write(html, literalStart, outputMatcher.start() - literalStart);
+
+            String expression = outputMatcher.group();
+            String value = values.get(expression);
+            if (value == null) {
+                Object object = EXPRESSIONS.getExpressionValue(expression);
+                value = object != null ? object.toString() : "";
+                values.put(expression, value);
+            }
+            writer.write(value);
+            literalStart = outputMatcher.end();
+        } while (outputMatcher.find());
+
+        writer.write(html, literalStart, html.length() - literalStart);
     }
 
 }
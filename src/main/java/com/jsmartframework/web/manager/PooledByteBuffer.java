@@ -0,0 +1,125 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+final class PooledByteBuffer {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    private static final int MAX_POOLED_SEGMENTS = Runtime.getRuntime().availableProcessors() * 16;
+
+    // Segments are shared by all request threads on a bounded pool, so its memory does not grow with the
+    // container thread count and nothing is left on the container threads after undeploy
+    private static final BlockingQueue<byte[]> SEGMENT_POOL = new ArrayBlockingQueue<>(MAX_POOLED_SEGMENTS);
+
+    private final List<byte[]> segments = new ArrayList<>();
+
+    private byte[] current;
+
+    private int position;
+
+    private int size;
+
+    void write(int b) {
+        if (current == null || position == current.length) {
+            nextSegment();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (current == null || position == current.length) {
+                nextSegment();
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(b, off, current, position, count);
+            position += count;
+            size += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void writeTo(OutputStream outputStream) throws IOException {
+        int remaining = size;
+        for (byte[] segment : segments) {
+            int count = Math.min(remaining, segment.length);
+            outputStream.write(segment, 0, count);
+            remaining -= count;
+        }
+    }
+
+    byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (byte[] segment : segments) {
+            int count = Math.min(size - offset, segment.length);
+            System.arraycopy(segment, 0, bytes, offset, count);
+            offset += count;
+        }
+        return bytes;
+    }
+
+    String toString(Charset charset) {
+        if (segments.size() == 1) {
+            return new String(current, 0, position, charset);
+        }
+        return new String(toByteArray(), charset);
+    }
+
+    void release() {
+        for (byte[] segment : segments) {
+            if (!SEGMENT_POOL.offer(segment)) {
+                break;
+            }
+        }
+        segments.clear();
+        current = null;
+        position = 0;
+        size = 0;
+    }
+
+    static void clearPool() {
+        SEGMENT_POOL.clear();
+    }
+
+    private void nextSegment() {
+        current = SEGMENT_POOL.poll();
+        if (current == null) {
+            current = new byte[SEGMENT_SIZE];
+        }
+        segments.add(current);
+        position = 0;
+    }
+
+}
@@ -56,11 +56,11 @@ public class RequestPathFilter implements Filter {
         } catch (Throwable thrown) {
             throwable = thrown;
             thrown.printStackTrace();
+        } finally {
+            // Close bean context based on current thread instance
+            WebContext.closeCurrentInstance();
         }
 
-        // Close bean context based on current thread instance
-        WebContext.closeCurrentInstance();
-
         // Case internal server error
         if (throwable != null) {
             if (throwable instanceof IOException) {
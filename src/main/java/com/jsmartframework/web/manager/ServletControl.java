@@ -18,6 +18,7 @@
 
 package com.jsmartframework.web.manager;
 
+import static com.jsmartframework.web.config.Config.CONFIG;
 import static com.jsmartframework.web.config.Constants.REQUEST_REDIRECT_PATH_AJAX_ATTR;
 import static com.jsmartframework.web.config.Constants.REQUEST_REDIRECT_WINDOW_PATH_AJAX_ATTR;
 import static com.jsmartframework.web.manager.BeanHandler.HANDLER;
@@ -213,9 +214,13 @@ public final class ServletControl extends HttpServlet {
             return;
         }
 
-        // Initiate beans mentioned on jsp page
+        // Initiate beans mentioned on jsp page, or leave them to be created on first use if lazy
         try {
-            HANDLER.instantiateBeans(path, null);
+            if (CONFIG.getContent().isLazyBeans()) {
+                HANDLER.registerLazyBeans(path);
+            } else {
+                HANDLER.instantiateBeans(path, null);
+            }
         } catch (Exception ex) {
             LOGGER.log(Level.SEVERE, "WebBeans on page [" + path + "] could not be instantiated: " + ex.getMessage());
             throw new ServletException(ex);
@@ -32,30 +32,30 @@ public final class SessionControl implements HttpSessionListener {
     @Override
     public void sessionCreated(HttpSessionEvent event) {
         HttpSession session = event.getSession();
-        synchronized (session) {
+        // Sessions created lazily by stateless requests keep the reset flag and the auth bean out of the
+        // session, the auth bean is only created once touched by the request
+        if (!WebContext.isStateless()) {
             session.setAttribute(Constants.SESSION_RESET_ATTR, "#");
             HANDLER.instantiateAuthBean(session);
+        }
 
-            if (CONFIG.getContent().getSessionTimeout() > 0) {
-                session.setMaxInactiveInterval(CONFIG.getContent().getSessionTimeout() * 60);
-            }
+        if (CONFIG.getContent().getSessionTimeout() > 0) {
+            session.setMaxInactiveInterval(CONFIG.getContent().getSessionTimeout() * 60);
+        }
 
-            for (HttpSessionListener sessionListener : HANDLER.sessionListeners) {
-                HANDLER.executeInjection(sessionListener);
-                sessionListener.sessionCreated(event);
-            }
+        for (HttpSessionListener sessionListener : HANDLER.sessionListeners) {
+            HANDLER.executeInjection(sessionListener);
+            sessionListener.sessionCreated(event);
         }
     }
 
     @Override
     public void sessionDestroyed(HttpSessionEvent event) {
         HttpSession session = event.getSession();
-        synchronized (session) {
-            for (HttpSessionListener sessionListener : HANDLER.sessionListeners) {
-                sessionListener.sessionDestroyed(event);
-            }
-            HANDLER.finalizeBeans(session);
+        for (HttpSessionListener sessionListener : HANDLER.sessionListeners) {
+            sessionListener.sessionDestroyed(event);
         }
+        HANDLER.finalizeBeans(session);
     }
 
 }
@@ -0,0 +1,48 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import javax.servlet.http.HttpSession;
+
+final class SessionLocks {
+
+    private static final int STRIPES = 256;
+
+    private static final Object[] LOCKS = new Object[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private SessionLocks() {
+        // DO NOTHING
+    }
+
+    // Attributes of the same session under different names rarely share a lock, so concurrent
+    // requests of one user only wait for each other when creating the same scoped bean
+    static Object getLock(HttpSession session, String name) {
+        int hash = session.getId().hashCode() * 31 + name.hashCode();
+        hash ^= hash >>> 16;
+        return LOCKS[hash & (STRIPES - 1)];
+    }
+
+}
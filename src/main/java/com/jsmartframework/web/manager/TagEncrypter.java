@@ -19,21 +19,18 @@
 package com.jsmartframework.web.manager;
 
 import static com.jsmartframework.web.config.Config.CONFIG;
-import static com.jsmartframework.web.config.Constants.REQUEST_TAG_ENCRYPT_CIPHER;
-import static com.jsmartframework.web.config.Constants.REQUEST_TAG_DECRYPT_CIPHER;
+import static com.jsmartframework.web.config.Constants.EL_PARAM_READ_ONLY;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 
-import java.io.UnsupportedEncodingException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
-import javax.servlet.http.HttpServletRequest;
-
 final class TagEncrypter {
 
     private static final Logger LOGGER = Logger.getLogger(TagEncrypter.class.getPackage().getName());
@@ -42,51 +39,68 @@ final class TagEncrypter {
 
     private static final int CYPHER_KEY_LENGTH = 16;
 
-    private static SecretKey secretKey;
+    private static final int MAX_CACHED_NAMES = 10000;
+
+    private static volatile String secretKey;
+
+    // Same key always maps the same expression to the same name, so both ways are cached per key
+    private static volatile NameCache nameCache = new NameCache(null);
 
     static void init() {
-        try {
-            String customKey = CONFIG.getContent().getTagSecretKey();
-            if (StringUtils.isNotBlank(customKey)) {
+        String customKey = CONFIG.getContent().getTagSecretKey();
+        if (StringUtils.isNotBlank(customKey)) {
 
-                if (customKey.length() != CYPHER_KEY_LENGTH) {
-                    throw new RuntimeException("Custom tag-secret-key must have its value " +
-                                               "with [" + CYPHER_KEY_LENGTH + "] characters");
-                }
-                secretKey = new SecretKeySpec(customKey.getBytes("UTF8"), "AES");
-            } else {
-                secretKey = new SecretKeySpec(DEFAULT_KEY.getBytes("UTF8"), "AES");
+            if (customKey.length() != CYPHER_KEY_LENGTH) {
+                throw new RuntimeException("Custom tag-secret-key must have its value " +
+                                           "with [" + CYPHER_KEY_LENGTH + "] characters");
             }
-        } catch (UnsupportedEncodingException ex) {
-            LOGGER.log(Level.INFO, "Failed to generate key secret for tag: " + ex.getMessage());
+            secretKey = customKey;
+        } else {
+            secretKey = DEFAULT_KEY;
         }
+        nameCache = new NameCache(secretKey);
     }
 
-    private static Cipher getEncryptCipher(HttpServletRequest request) throws Exception {
-        Cipher encryptCipher = (Cipher) request.getAttribute(REQUEST_TAG_ENCRYPT_CIPHER);
-        if (encryptCipher == null) {
-            encryptCipher = Cipher.getInstance("AES");
-            encryptCipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            request.setAttribute(REQUEST_TAG_ENCRYPT_CIPHER, encryptCipher);
+    static void destroy() {
+        LOGGER.log(Level.INFO, "Encrypted tag names cache " + ExpressionHandler.getStatsReport(getEncryptStats()));
+        LOGGER.log(Level.INFO, "Decrypted tag names cache " + ExpressionHandler.getStatsReport(getDecryptStats()));
+        if (CONFIG.getContent().isCompactTagNames()) {
+            LOGGER.log(Level.INFO, "Compact tag names registered [" + nameCache.symbols.size() + "]");
         }
-        return encryptCipher;
+        nameCache = new NameCache(secretKey);
     }
 
-    private static Cipher getDecryptCipher(HttpServletRequest request) throws Exception {
-        Cipher decryptCipher = (Cipher) request.getAttribute(REQUEST_TAG_DECRYPT_CIPHER);
-        if (decryptCipher == null) {
-            decryptCipher = Cipher.getInstance("AES");
-            decryptCipher.init(Cipher.DECRYPT_MODE, secretKey);
-            request.setAttribute(REQUEST_TAG_DECRYPT_CIPHER, decryptCipher);
-        }
-        return decryptCipher;
+    static CacheStats getEncryptStats() {
+        return nameCache.encrypted.stats();
+    }
+
+    static CacheStats getDecryptStats() {
+        return nameCache.decrypted.stats();
     }
 
-    static String encrypt(HttpServletRequest request, String value) {
+    static String encrypt(String value) {
         if (value != null) {
+            NameCache cache = getNameCache();
+
+            // Compact names are short authenticated ids of the expressions registered on the symbol table
+            if (CONFIG.getContent().isCompactTagNames()) {
+                String name = cache.symbols.getName(value);
+                if (name != null) {
+                    return name;
+                }
+            }
+
+            String name = cache.encrypted.getIfPresent(value);
+            if (name != null) {
+                return name;
+            }
             try {
-                byte[] encode = getEncryptCipher(request).doFinal(value.getBytes("UTF8"));
-                return new String(Base64.encodeBase64(encode, true, true)).trim();
+                byte[] encode = CipherPool.encrypt(secretKey, value.getBytes("UTF8"));
+                name = new String(Base64.encodeBase64(encode, true, true)).trim();
+
+                cache.encrypted.put(value, name);
+                cache.decrypted.put(name, value);
+                return name;
             } catch (Exception ex) {
                 LOGGER.log(Level.INFO, "Failed to encrypt tag [" + value + "]: " + ex.getMessage());
             }
@@ -94,11 +108,31 @@ final class TagEncrypter {
         return value;
     }
 
-    static String decrypt(HttpServletRequest request, String value) {
+    static String decrypt(String value) {
         if (value != null) {
+            NameCache cache = getNameCache();
+
+            // Encrypted names never contain the symbol separator as it is not part of Base64 alphabet. Unknown
+            // names come from pages rendered before a restart, by another instance or forged, so they are not bound
+            if (value.indexOf(TagSymbolTable.SYMBOL_SEPARATOR) >= 0) {
+                String expression = cache.symbols.getExpression(StringUtils.removeEnd(value, EL_PARAM_READ_ONLY));
+                if (expression == null) {
+                    LOGGER.log(Level.INFO, "Compact tag name [" + value + "] is unknown and its value will be ignored");
+                }
+                return expression;
+            }
+
+            String expression = cache.decrypted.getIfPresent(value);
+            if (expression != null) {
+                return expression;
+            }
             try {
                 byte[] decoded = Base64.decodeBase64(value);
-                return new String(getDecryptCipher(request).doFinal(decoded), "UTF8");
+                expression = new String(CipherPool.decrypt(secretKey, decoded), "UTF8");
+
+                // Only names which could be decrypted are kept
+                cache.decrypted.put(value, expression);
+                return expression;
             } catch (Exception ex) {
                 LOGGER.log(Level.INFO, "Failed to decrypt tag [" + value + "]: " + ex.getMessage());
             }
@@ -106,4 +140,31 @@ final class TagEncrypter {
         return value;
     }
 
+    private static NameCache getNameCache() {
+        NameCache cache = nameCache;
+        if (!StringUtils.equals(cache.secretKey, secretKey)) {
+            cache = new NameCache(secretKey);
+            nameCache = cache;
+        }
+        return cache;
+    }
+
+    private static class NameCache {
+
+        private final String secretKey;
+
+        private final TagSymbolTable symbols;
+
+        private final Cache<String, String> encrypted = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_NAMES).recordStats().build();
+
+        private final Cache<String, String> decrypted = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHED_NAMES).recordStats().build();
+
+        private NameCache(String secretKey) {
+            this.secretKey = secretKey;
+            this.symbols = new TagSymbolTable(secretKey != null ? secretKey : DEFAULT_KEY);
+        }
+    }
+
 }
\ No newline at end of file
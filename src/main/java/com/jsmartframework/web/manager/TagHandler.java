@@ -617,15 +617,16 @@ public abstract class TagHandler extends SimpleTagSupport {
         return String.format(Constants.TAG_EL, name);
     }
 
-    protected String getTagName(String prefix, String name) {
-        return getTagName(WebContext.getRequest(), prefix, name);
+    @Deprecated
+    protected String getTagName(HttpServletRequest httpRequest, String prefix, String name) {
+        return getTagName(prefix, name);
     }
 
-    protected String getTagName(HttpServletRequest httpRequest, String prefix, String name) {
+    protected String getTagName(String prefix, String name) {
         if (name != null) {
             Matcher matcher = ExpressionHandler.EL_PATTERN.matcher(name);
             if (matcher.find()) {
-                return prefix + TagEncrypter.encrypt(httpRequest, name);
+                return prefix + TagEncrypter.encrypt(name);
             }
         }
         return name;
@@ -0,0 +1,122 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import org.apache.commons.codec.binary.Base64;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+final class TagSymbolTable {
+
+    static final char SYMBOL_SEPARATOR = '.';
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MAC_LENGTH = 6;
+
+    private static final int INDEX_RADIX = 36;
+
+    private static final int MAX_SYMBOLS = 100000;
+
+    private final SecretKeySpec macKey;
+
+    private final ConcurrentMap<String, String> byExpression = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Integer, String> byIndex = new ConcurrentHashMap<>();
+
+    TagSymbolTable(String secretKey) {
+        try {
+            this.macKey = new SecretKeySpec(secretKey.getBytes("UTF8"), MAC_ALGORITHM);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    // Names are the index of the expression on the table followed by a code authenticating the index together
+    // with the expression, such as .1c.Xk3d9Q_w. Returns null case the table is full
+    String getName(String expression) {
+        String name = byExpression.get(expression);
+        if (name != null) {
+            return name;
+        }
+
+        synchronized (this) {
+            name = byExpression.get(expression);
+            if (name == null) {
+                int index = byIndex.size();
+                if (index >= MAX_SYMBOLS) {
+                    return null;
+                }
+                byIndex.put(index, expression);
+                name = SYMBOL_SEPARATOR + Integer.toString(index, INDEX_RADIX) + SYMBOL_SEPARATOR + getMac(index, expression);
+                byExpression.put(expression, name);
+            }
+            return name;
+        }
+    }
+
+    // Indexes are assigned on first render, so a name rendered before a restart or by another instance may point
+    // to another expression here. Its code does not match in that case and null is returned, as for forged names
+    String getExpression(String name) {
+        int separator = name.lastIndexOf(SYMBOL_SEPARATOR);
+        if (separator <= 0 || name.charAt(0) != SYMBOL_SEPARATOR) {
+            return null;
+        }
+
+        String expression;
+        try {
+            expression = byIndex.get(Integer.parseInt(name.substring(1, separator), INDEX_RADIX));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        if (expression == null) {
+            return null;
+        }
+        try {
+            String expected = byExpression.get(expression);
+            return MessageDigest.isEqual(name.getBytes("UTF8"), expected.getBytes("UTF8")) ? expression : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    int size() {
+        return byIndex.size();
+    }
+
+    private String getMac(int index, String expression) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(macKey);
+            mac.update(Integer.toString(index).getBytes("UTF8"));
+            mac.update((byte) 0);
+            byte[] code = mac.doFinal(expression.getBytes("UTF8"));
+            return Base64.encodeBase64URLSafeString(Arrays.copyOf(code, MAC_LENGTH));
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to generate tag name authentication code: " + ex.getMessage());
+        }
+    }
+
+}
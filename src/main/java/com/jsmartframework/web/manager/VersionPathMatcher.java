@@ -0,0 +1,129 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+package com.jsmartframework.web.manager;
+
+import java.util.Arrays;
+
+final class VersionPathMatcher {
+
+    private final Node root = new Node();
+
+    private final boolean[] asciiStarts = new boolean[128];
+
+    private boolean empty = true;
+
+    void add(String path, String version) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            node = node.getOrAddChild(path.charAt(i));
+        }
+        node.suffix = "?" + version;
+
+        char start = path.charAt(0);
+        if (start < asciiStarts.length) {
+            asciiStarts[start] = true;
+        }
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    String apply(String text) {
+        if (empty || text.isEmpty()) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 64);
+        for (int i = 0; i < text.length(); ) {
+            int end = appendMatch(text, i, builder);
+            if (end > 0) {
+                i = end;
+            } else {
+                builder.append(text.charAt(i++));
+            }
+        }
+        return builder.toString();
+    }
+
+    // Append the longest versioned path starting at index and return its end or -1 if none
+    int appendMatch(CharSequence text, int index, StringBuilder builder) {
+        char start = text.charAt(index);
+        if (start < asciiStarts.length && !asciiStarts[start]) {
+            return -1;
+        }
+
+        int end = -1;
+        String suffix = null;
+        Node node = root;
+
+        for (int i = index; i < text.length(); i++) {
+            node = node.getChild(text.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.suffix != null) {
+                end = i + 1;
+                suffix = node.suffix;
+            }
+        }
+
+        if (end > 0) {
+            builder.append(text, index, end).append(suffix);
+        }
+        return end;
+    }
+
+    private static class Node {
+
+        private char[] keys = new char[0];
+
+        private Node[] children = new Node[0];
+
+        private String suffix;
+
+        private Node getChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrAddChild(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+
+            Node child = new Node();
+            newKeys[index] = key;
+            newChildren[index] = child;
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+
+}
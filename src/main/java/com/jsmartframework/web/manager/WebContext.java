@@ -18,6 +18,9 @@
 
 package com.jsmartframework.web.manager;
 
+import static com.jsmartframework.web.config.Config.CONFIG;
+import static com.jsmartframework.web.manager.ExpressionHandler.EXPRESSIONS;
+
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.jsmartframework.web.util.WebAlert;
@@ -40,6 +43,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.PostConstruct;
@@ -75,7 +79,7 @@ public final class WebContext implements Serializable {
 
     private static final JspFactory JSP_FACTORY = JspFactory.getDefaultFactory();
 
-    private static final Map<Thread, WebContext> THREADS = new ConcurrentHashMap<>();
+    private static final ThreadLocal<WebContext> CURRENT = new ThreadLocal<>();
 
     private static final Gson GSON = new GsonBuilder()
             .registerTypeAdapter(LocalDateTime.class, new JsonConverter.LocalDateTimeTypeConverter())
@@ -93,6 +97,8 @@ public final class WebContext implements Serializable {
 
     private HttpServletResponse response;
 
+    private boolean stateless;
+
     private boolean responseWritten;
 
     private String redirectTo;
@@ -112,28 +118,131 @@ public final class WebContext implements Serializable {
     private WebContext(HttpServletRequest request, HttpServletResponse response) {
         this.request = request;
         this.response = response;
+        this.stateless = CONFIG.getContent().isStateless(request.getServletPath());
     }
 
     static final void setServlet(Servlet servlet) {
         smartServlet = servlet;
         jspContext = JSP_FACTORY.getJspApplicationContext(servlet.getServletConfig().getServletContext());
+
+        // Resolvers can only be added before the first request is served
+        if (CONFIG.getContent().isLazyBeans()) {
+            jspContext.addELResolver(new LazyBeanELResolver());
+        }
     }
 
     private static final WebContext getCurrentInstance() {
-        return THREADS.get(Thread.currentThread());
+        return CURRENT.get();
     }
 
     static final void initCurrentInstance(HttpServletRequest request, HttpServletResponse response) {
-        THREADS.put(Thread.currentThread(), new WebContext(request, response));
+        CURRENT.set(new WebContext(request, response));
     }
 
     static final void closeCurrentInstance() {
-        THREADS.remove(Thread.currentThread()).close();
+        WebContext context = CURRENT.get();
+        CURRENT.remove();
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * Returns the context of the request being currently processed so it can be restored
+     * on another thread via {@link #restore(WebContext)}, for instance on tasks submitted
+     * to executors and joined by the request thread.
+     * <br>
+     * The captured context is closed as soon as the framework filter finishes the request
+     * dispatch, so it cannot be used by work that outlives the dispatch, such as tasks started
+     * via {@code AsyncContext.start}. Requests dispatched via {@code AsyncContext.dispatch} get a new context.
+     *
+     * @return the current context or null if no request is being processed on this thread.
+     */
+    public static WebContext capture() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Associates a context captured via {@link #capture()} to the current thread. The returned
+     * context must be restored once the work is done, usually in a finally block.
+     *
+     * @param context the captured context, null to clear the context of the current thread.
+     * @return the context previously associated to the current thread.
+     */
+    public static WebContext restore(WebContext context) {
+        WebContext previous = CURRENT.get();
+        if (context != null) {
+            CURRENT.set(context);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Wraps the task so it runs with the context of the request being currently processed,
+     * whatever the thread that executes it. The task must complete before the request dispatch
+     * returns, see {@link #capture()}.
+     *
+     * @param task the task to be executed on another thread.
+     * @return a {@link Runnable} that restores the current context while running the task.
+     * @throws IllegalStateException on running the task after the request dispatch has returned.
+     */
+    public static Runnable wrap(final Runnable task) {
+        final WebContext context = capture();
+        return new Runnable() {
+            @Override
+            public void run() {
+                checkOpen(context);
+                WebContext previous = restore(context);
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps the task so it runs with the context of the request being currently processed,
+     * whatever the thread that executes it. The task must complete before the request dispatch
+     * returns, see {@link #capture()}.
+     *
+     * @param task the task to be executed on another thread.
+     * @param <T> the type of the task result.
+     * @return a {@link Callable} that restores the current context while running the task.
+     * @throws IllegalStateException on running the task after the request dispatch has returned.
+     */
+    public static <T> Callable<T> wrap(final Callable<T> task) {
+        final WebContext context = capture();
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                checkOpen(context);
+                WebContext previous = restore(context);
+                try {
+                    return task.call();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    private static void checkOpen(WebContext context) {
+        if (context != null && context.request == null) {
+            throw new IllegalStateException("WebContext was closed when the request dispatch returned. Wrapped tasks "
+                    + "must complete before the request finishes, tasks outliving it cannot use the WebContext");
+        }
     }
 
     private void close() {
         if (invalidate) {
-            request.getSession().invalidate();
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                session.invalidate();
+            }
         }
         invalidate = false;
         request = null;
@@ -156,7 +265,7 @@ public final class WebContext implements Serializable {
 
     private PageContext getPage() {
         if (pageContext == null) {
-            pageContext = JSP_FACTORY.getPageContext(smartServlet, request, response, null, true, 8192, true);
+            pageContext = JSP_FACTORY.getPageContext(smartServlet, request, response, null, !stateless, 8192, true);
         }
         return pageContext;
     }
@@ -185,13 +294,45 @@ public final class WebContext implements Serializable {
 
     /**
      * Returns the current {@link HttpSession} instance associated to the request being
-     * processed.
+     * processed. On stateless requests the session is not created and null is returned
+     * in case it does not exist yet.
      *
      * @return a instance of {@link HttpSession}.
      */
     public static HttpSession getSession() {
         WebContext context = getCurrentInstance();
-        return context != null ? context.request.getSession() : null;
+        return context != null ? context.request.getSession(!context.stateless) : null;
+    }
+
+    /**
+     * Returns the current {@link HttpSession} instance associated to the request being
+     * processed, creating it if asked to even on stateless requests.
+     *
+     * @param create true to create the session in case it does not exist yet.
+     * @return a instance of {@link HttpSession} or null if it does not exist and was not created.
+     * @throws IllegalStateException if the session must be created after the response was committed.
+     */
+    public static HttpSession getSession(boolean create) {
+        WebContext context = getCurrentInstance();
+        if (context == null) {
+            return null;
+        }
+        HttpSession session = context.request.getSession(false);
+        if (session == null && create) {
+            // Streamed responses are committed while rendering, so the session cookie cannot be sent anymore
+            if (context.response.isCommitted()) {
+                throw new IllegalStateException("Session cannot be created for path [" + context.request.getServletPath()
+                        + "] after the response was committed. Stateless pages streaming the html must not touch "
+                        + "session scoped beans which are not referenced by the page itself");
+            }
+            session = context.request.getSession(true);
+        }
+        return session;
+    }
+
+    static boolean isStateless() {
+        WebContext context = getCurrentInstance();
+        return context != null && context.stateless;
     }
 
     /**
@@ -320,6 +461,16 @@ public final class WebContext implements Serializable {
         return request != null ? "XMLHttpRequest".equals(request.getHeader("X-Requested-With")) : false;
     }
 
+    /**
+     * Returns the hit rate, hits, misses and evictions of the parsed expressions caches,
+     * mapped by cache name.
+     *
+     * @return {@link Map} of cache name to its statistics report.
+     */
+    public static Map<String, String> getExpressionCacheStats() {
+        return EXPRESSIONS.getStats();
+    }
+
     static List<WebAlert> getAlerts(String id) {
         WebContext context = getCurrentInstance();
         return context != null ? context.alerts.get(id) : null;
@@ -471,10 +622,9 @@ public final class WebContext implements Serializable {
 
             HttpSession session = getSession();
             if (session != null) {
-                synchronized (session) {
-                    if (session.getAttribute(name) != null) {
-                        return session.getAttribute(name);
-                    }
+                Object value = session.getAttribute(name);
+                if (value != null) {
+                    return value;
                 }
             }
 
@@ -502,12 +652,8 @@ public final class WebContext implements Serializable {
             }
 
             HttpSession session = getSession();
-            if (session != null) {
-                synchronized (session) {
-                    if (session.getAttribute(name) != null) {
-                        return true;
-                    }
-                }
+            if (session != null && session.getAttribute(name) != null) {
+                return true;
             }
 
             return getApplication().getAttribute(name) != null;
@@ -0,0 +1,137 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.processor;
+
+import static com.jsmartframework.web.config.Constants.ANNOTATION_INDEX_PATH;
+import static com.jsmartframework.web.config.Constants.ENCODING;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+@SupportedAnnotationTypes({
+        "com.jsmartframework.web.annotation.WebBean",
+        "com.jsmartframework.web.annotation.AuthBean",
+        "com.jsmartframework.web.annotation.RequestPath",
+        "com.jsmartframework.web.annotation.AsyncBean",
+        "com.jsmartframework.web.annotation.WebServlet",
+        "com.jsmartframework.web.annotation.WebFilter",
+        "com.jsmartframework.web.annotation.WebListener",
+        "com.jsmartframework.web.annotation.WebSecurity"})
+public final class AnnotationIndexProcessor extends AbstractProcessor {
+
+    private final Map<String, Set<String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind().isClass()) {
+                    String className = processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                    addEntry(annotation.getQualifiedName().toString(), className);
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !index.isEmpty()) {
+            readIndex();
+            writeIndex();
+        }
+        return false;
+    }
+
+    private void addEntry(String annotationName, String className) {
+        Set<String> classNames = index.get(annotationName);
+        if (classNames == null) {
+            index.put(annotationName, classNames = new TreeSet<>());
+        }
+        classNames.add(className);
+    }
+
+    // Incremental builds only process the changed sources, so keep the entries of a previous
+    // build whose classes still exist and are still annotated
+    private void readIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ANNOTATION_INDEX_PATH);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openInputStream(), ENCODING))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] entry = line.trim().split("\\s+");
+                    if (entry.length == 2 && !entry[0].startsWith("#") && isAnnotated(entry[1], entry[0])) {
+                        addEntry(entry[0], entry[1]);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // No index from previous build
+        }
+    }
+
+    private boolean isAnnotated(String className, String annotationName) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className.replace('$', '.'));
+        if (element != null) {
+            for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+                if (mirror.getAnnotationType().toString().equals(annotationName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ANNOTATION_INDEX_PATH);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), ENCODING)) {
+                writer.write("# Generated by " + getClass().getName() + ", do not edit\n");
+                for (Map.Entry<String, Set<String>> entry : index.entrySet()) {
+                    for (String className : entry.getValue()) {
+                        writer.write(entry.getKey() + " " + className + "\n");
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write JSmart annotation index: " + ex.getMessage());
+        }
+    }
+
+}
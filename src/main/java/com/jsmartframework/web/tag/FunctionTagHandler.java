@@ -116,12 +116,12 @@ public final class FunctionTagHandler extends TagHandler {
         }
         setArgs(annotatedFunction.getArguments());
 
-        Ajax jsonAjax = getJsonAjax(httpRequest, id);
+        Ajax jsonAjax = getJsonAjax(id);
         StringBuilder scriptBuilder = new StringBuilder(JSMART_AJAX.format(getJsonValue(jsonAjax)));
         appendFunction(httpRequest, getFunction(id, name, functionArgs, functionVars, scriptBuilder));
     }
 
-    private Ajax getJsonAjax(HttpServletRequest httpRequest, String id) {
+    private Ajax getJsonAjax(String id) {
         Ajax jsonAjax = new Ajax();
         jsonAjax.setId(id);
         jsonAjax.setTimeout(timeout);
@@ -135,10 +135,10 @@ public final class FunctionTagHandler extends TagHandler {
 
         if (action != null) {
             jsonAjax.setMethod("post");
-            jsonAjax.setAction(getTagName(httpRequest, J_SBMT, action));
+            jsonAjax.setAction(getTagName(J_SBMT, action));
 
             if (!args.isEmpty()) {
-                String name = getTagName(httpRequest, J_SBMT_ARGS, action);
+                String name = getTagName(J_SBMT_ARGS, action);
 
                 for (Object arg : args.keySet()) {
                     jsonAjax.addArg(new Param(name, id + arg, args.get(arg)));
@@ -0,0 +1,139 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.filter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+public class EncodeFilterTest {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    @Test
+    public void writesGzipHeader() throws IOException {
+        byte[] encoded = encode(createContent(100), new Deflater(Deflater.DEFAULT_COMPRESSION, true), true);
+        assertArrayEquals(GZIP_HEADER, Arrays.copyOf(encoded, GZIP_HEADER.length));
+    }
+
+    @Test
+    public void writesGzipTrailerWithCrcAndSize() throws IOException {
+        byte[] content = createContent(70000);
+        byte[] encoded = encode(content, new Deflater(Deflater.DEFAULT_COMPRESSION, true), true);
+
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        assertEquals(crc.getValue(), readInt(encoded, encoded.length - 8));
+        assertEquals(content.length, readInt(encoded, encoded.length - 4));
+    }
+
+    @Test
+    public void gzipContentIsReadByGzipStream() throws IOException {
+        byte[] content = createContent(70000);
+        byte[] encoded = encode(content, new Deflater(Deflater.BEST_SPEED, true), true);
+        assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(encoded))));
+    }
+
+    @Test
+    public void deflateContentHasNoGzipHeader() throws IOException {
+        byte[] content = createContent(20000);
+        byte[] encoded = encode(content, new Deflater(Deflater.DEFAULT_COMPRESSION, true), false);
+        assertArrayEquals(content, read(new InflaterInputStream(new ByteArrayInputStream(encoded), new Inflater(true))));
+    }
+
+    @Test
+    public void reusedDeflaterWritesSameContent() throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] first = encode(createContent(30000), deflater, true);
+
+        // Pooled deflaters are reset before being used again
+        deflater.reset();
+        byte[] content = createContent(5000);
+        byte[] encoded = encode(content, deflater, true);
+
+        assertEquals(content.length, readInt(encoded, encoded.length - 4));
+        assertArrayEquals(content, read(new GZIPInputStream(new ByteArrayInputStream(encoded))));
+        assertEquals(30000, readInt(first, first.length - 4));
+    }
+
+    @Test
+    public void finishWritesTrailerOnce() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        EncodeFilter.EncodingDeflaterOutputStream deflaterStream = new EncodeFilter.EncodingDeflaterOutputStream(
+                output, new Deflater(Deflater.DEFAULT_COMPRESSION, true), true);
+
+        deflaterStream.write(createContent(1000), 0, 1000);
+        deflaterStream.finish();
+        int length = output.size();
+
+        deflaterStream.finish();
+        deflaterStream.close();
+        assertEquals(length, output.size());
+    }
+
+    private static byte[] encode(byte[] content, Deflater deflater, boolean gzip) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        EncodeFilter.EncodingDeflaterOutputStream deflaterStream = new EncodeFilter.EncodingDeflaterOutputStream(
+                output, deflater, gzip);
+
+        // Content is written in chunks as servlets and JSP writers do
+        for (int off = 0; off < content.length; off += 1000) {
+            deflaterStream.write(content, off, Math.min(1000, content.length - off));
+        }
+        deflaterStream.close();
+        return output.toByteArray();
+    }
+
+    private static byte[] createContent(int size) {
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; builder.length() < size; i++) {
+            builder.append("<div class=\"row\">Row ").append(i).append("</div>\n");
+        }
+        return builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long readInt(byte[] bytes, int index) {
+        return (bytes[index] & 0xffL) | (bytes[index + 1] & 0xffL) << 8
+                | (bytes[index + 2] & 0xffL) << 16 | (bytes[index + 3] & 0xffL) << 24;
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int read; (read = input.read(buffer)) >= 0; ) {
+            output.write(buffer, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+}
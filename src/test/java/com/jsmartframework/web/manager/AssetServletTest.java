@@ -0,0 +1,73 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class AssetServletTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    public void boundedRange() {
+        assertArrayEquals(new long[] {0, 99}, AssetServlet.getRangeBounds("bytes=0-99", LENGTH));
+        assertArrayEquals(new long[] {0, 0}, AssetServlet.getRangeBounds("bytes=0-0", LENGTH));
+        assertArrayEquals(new long[] {10, 20}, AssetServlet.getRangeBounds(" bytes=10-20 ", LENGTH));
+    }
+
+    @Test
+    public void openRangeEndsAtLastByte() {
+        assertArrayEquals(new long[] {500, 999}, AssetServlet.getRangeBounds("bytes=500-", LENGTH));
+        assertArrayEquals(new long[] {999, 999}, AssetServlet.getRangeBounds("bytes=999-", LENGTH));
+    }
+
+    @Test
+    public void endBeyondLengthIsLimited() {
+        assertArrayEquals(new long[] {900, 999}, AssetServlet.getRangeBounds("bytes=900-5000", LENGTH));
+        assertArrayEquals(new long[] {0, 999}, AssetServlet.getRangeBounds("bytes=0-99999999999999999999", LENGTH));
+    }
+
+    @Test
+    public void suffixRangeTakesLastBytes() {
+        assertArrayEquals(new long[] {900, 999}, AssetServlet.getRangeBounds("bytes=-100", LENGTH));
+        assertArrayEquals(new long[] {0, 999}, AssetServlet.getRangeBounds("bytes=-2000", LENGTH));
+        assertArrayEquals(new long[] {0, 999}, AssetServlet.getRangeBounds("bytes=-99999999999999999999", LENGTH));
+    }
+
+    @Test
+    public void unsatisfiableRanges() {
+        assertNull(AssetServlet.getRangeBounds("bytes=1000-", LENGTH));
+        assertNull(AssetServlet.getRangeBounds("bytes=20-10", LENGTH));
+        assertNull(AssetServlet.getRangeBounds("bytes=-0", LENGTH));
+        assertNull(AssetServlet.getRangeBounds("bytes=-5", 0));
+        assertNull(AssetServlet.getRangeBounds("bytes=99999999999999999999-", LENGTH));
+    }
+
+    @Test
+    public void unsupportedRanges() {
+        assertNull(AssetServlet.getRangeBounds("bytes=-", LENGTH));
+        assertNull(AssetServlet.getRangeBounds("bytes=0-1,5-6", LENGTH));
+        assertNull(AssetServlet.getRangeBounds("items=0-1", LENGTH));
+    }
+
+}
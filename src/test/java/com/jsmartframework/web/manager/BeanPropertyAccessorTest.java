@@ -0,0 +1,260 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.el.ELException;
+import javax.el.ExpressionFactory;
+
+public class BeanPropertyAccessorTest {
+
+    private ExpressionFactory expressionFactory;
+
+    private Order order;
+
+    @Before
+    public void setUp() {
+        expressionFactory = ExpressionFactory.newInstance();
+        order = new Order();
+    }
+
+    @Test
+    public void splitsSimplePaths() {
+        assertArrayEquals(new String[] {"order", "customer", "name"},
+                BeanPropertyAccessor.splitSimplePath("order.customer.name"));
+
+        assertNull(BeanPropertyAccessor.splitSimplePath("order"));
+        assertNull(BeanPropertyAccessor.splitSimplePath("order..name"));
+        assertNull(BeanPropertyAccessor.splitSimplePath("order.name."));
+        assertNull(BeanPropertyAccessor.splitSimplePath("order.items[0]"));
+        assertNull(BeanPropertyAccessor.splitSimplePath("sessionScope.order"));
+        assertNull(BeanPropertyAccessor.splitSimplePath("order.empty"));
+    }
+
+    @Test
+    public void coercesStringsToPropertyTypes() {
+        assertTrue(set("order.quantity", "42"));
+        assertTrue(set("order.id", "7"));
+        assertTrue(set("order.gift", "true"));
+        assertTrue(set("order.total", "10.50"));
+        assertTrue(set("order.status", "SHIPPED"));
+
+        assertEquals(42, order.getQuantity());
+        assertEquals(Long.valueOf(7), order.getId());
+        assertTrue(order.isGift());
+        assertEquals(new BigDecimal("10.50"), order.getTotal());
+        assertSame(Status.SHIPPED, order.getStatus());
+    }
+
+    @Test
+    public void coercesEmptyValuesLikeEl() {
+        order.setQuantity(3);
+        assertTrue(set("order.quantity", ""));
+        assertEquals(0, order.getQuantity());
+
+        order.setQuantity(3);
+        assertTrue(set("order.quantity", null));
+        assertEquals(0, order.getQuantity());
+    }
+
+    @Test
+    public void coercesValuesToString() {
+        assertTrue(set("order.note", 15));
+        assertEquals("15", order.getNote());
+    }
+
+    @Test(expected = ELException.class)
+    public void failsOnValuesWhichCannotBeCoerced() {
+        set("order.quantity", "many");
+    }
+
+    @Test
+    public void setsNestedProperties() {
+        assertTrue(set("order.customer.name", "Ana"));
+        assertEquals("Ana", order.getCustomer().getName());
+        assertEquals("Ana", get("order.customer.name"));
+    }
+
+    @Test
+    public void leavesOtherCasesToEl() {
+        // Read only properties, null intermediate values and maps are handled by the EL resolvers
+        assertFalse(set("order.code", "A1"));
+        assertFalse(set("order.unknown", "A1"));
+        assertFalse(set("order.attributes.color", "red"));
+
+        order.setCustomer(null);
+        assertFalse(set("order.customer.name", "Ana"));
+    }
+
+    @Test
+    public void getsPropertiesAndMapValues() {
+        order.setNote("fragile");
+        order.getAttributes().put("color", "red");
+
+        assertEquals("fragile", get("order.note"));
+        assertEquals("red", get("order.attributes.color"));
+        assertEquals("A1", get("order.code"));
+        assertSame(BeanPropertyAccessor.NOT_RESOLVED, get("order.unknown"));
+
+        order.setCustomer(null);
+        assertNull(get("order.customer.name"));
+    }
+
+    @Test
+    public void usesPublicInterfaceOfNonPublicClasses() {
+        Labeled labeled = new HiddenLabel();
+        assertEquals("hidden", BeanPropertyAccessor.getValue(labeled, new String[] {"labeled", "label"}));
+    }
+
+    private boolean set(String expr, Object value) {
+        return BeanPropertyAccessor.setValue(order, BeanPropertyAccessor.splitSimplePath(expr), value, expressionFactory);
+    }
+
+    private Object get(String expr) {
+        return BeanPropertyAccessor.getValue(order, BeanPropertyAccessor.splitSimplePath(expr));
+    }
+
+    public enum Status {
+        OPEN, SHIPPED
+    }
+
+    public interface Labeled {
+
+        String getLabel();
+    }
+
+    private static class HiddenLabel implements Labeled {
+
+        @Override
+        public String getLabel() {
+            return "hidden";
+        }
+    }
+
+    public static class Customer {
+
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Order {
+
+        private Long id;
+
+        private int quantity;
+
+        private boolean gift;
+
+        private BigDecimal total;
+
+        private Status status;
+
+        private String note;
+
+        private Customer customer = new Customer();
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public boolean isGift() {
+            return gift;
+        }
+
+        public void setGift(boolean gift) {
+            this.gift = gift;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public void setTotal(BigDecimal total) {
+            this.total = total;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public void setStatus(Status status) {
+            this.status = status;
+        }
+
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+
+        public Customer getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(Customer customer) {
+            this.customer = customer;
+        }
+
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+
+        public String getCode() {
+            return "A1";
+        }
+    }
+
+}
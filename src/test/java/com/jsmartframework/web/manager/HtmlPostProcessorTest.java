@@ -0,0 +1,120 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static com.jsmartframework.web.config.Constants.REQUEST_EXPOSE_VARS_ATTR;
+import static com.jsmartframework.web.config.Constants.REQUEST_META_DATA_CSRF_TOKEN_NAME;
+import static com.jsmartframework.web.config.Constants.REQUEST_META_DATA_CSRF_TOKEN_VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import javax.servlet.http.HttpServletRequest;
+
+public class HtmlPostProcessorTest {
+
+    private static final String VAR_SCRIPT = "var count = 1;";
+
+    private HttpServletRequest request;
+
+    private VersionPathMatcher versionMatcher;
+
+    @Before
+    public void setUp() {
+        request = ServletStubs.request("/home.jsp");
+        request.setAttribute(REQUEST_EXPOSE_VARS_ATTR, Collections.singletonMap("count", 1));
+        versionMatcher = new VersionPathMatcher();
+    }
+
+    @Test
+    public void keepsContentWithoutHtmlTag() {
+        String content = "<div>fragment</div>";
+        assertSame(content, HtmlPostProcessor.process(request, content, versionMatcher));
+    }
+
+    @Test
+    public void placesHeadContentAfterHeadTag() {
+        request.setAttribute(REQUEST_META_DATA_CSRF_TOKEN_NAME, "token-name");
+        request.setAttribute(REQUEST_META_DATA_CSRF_TOKEN_VALUE, "token-value");
+
+        String html = HtmlPostProcessor.process(request,
+                "<html><head lang=\"en\"><title>Home</title></head><body><header>Top</header></body></html>", versionMatcher);
+
+        int headEnd = html.indexOf("<head lang=\"en\">") + "<head lang=\"en\">".length();
+        assertTrue(html.startsWith("<meta", headEnd));
+        assertTrue(html.indexOf("token-value") < html.indexOf("<title>"));
+        assertTrue(html.contains("<header>Top</header>"));
+    }
+
+    @Test
+    public void createsHeadWhenMissing() {
+        String html = HtmlPostProcessor.process(request, "<html><body><p>Home</p></body></html>", versionMatcher);
+
+        assertTrue(html.startsWith("<html><head"));
+        assertTrue(html.indexOf("</head>") < html.indexOf("<body>"));
+    }
+
+    @Test
+    public void placesScriptsBeforeCloseBody() {
+        String html = HtmlPostProcessor.process(request,
+                "<html><head></head><body><p>Home</p></body></html>", versionMatcher);
+
+        int script = html.indexOf(VAR_SCRIPT);
+        assertTrue(script > html.indexOf("<p>Home</p>"));
+        assertTrue(script < html.indexOf("</body>"));
+        assertEquals(script, html.lastIndexOf(VAR_SCRIPT));
+    }
+
+    @Test
+    public void placesScriptsBeforeFirstBodyScript() {
+        String html = HtmlPostProcessor.process(request,
+                "<html><head><script src=\"head.js\"></script></head><body>\n<script src=\"page.js\"></script></body></html>",
+                versionMatcher);
+
+        int script = html.indexOf(VAR_SCRIPT);
+        assertTrue(script > html.indexOf("<body>"));
+        assertTrue(script < html.indexOf("<script src=\"page.js\">"));
+        assertEquals(script, html.lastIndexOf(VAR_SCRIPT));
+    }
+
+    @Test
+    public void appendsVersionsAcrossThePage() {
+        versionMatcher.add("assets/app.css", "c55");
+        versionMatcher.add("assets/logo.png", "b16");
+
+        String html = HtmlPostProcessor.process(request, "<html><head><link href=\"/assets/app.css\"/></head>"
+                + "<body><img src=\"/assets/logo.png\"/><img src=\"/assets/other.png\"/></body></html>", versionMatcher);
+
+        assertTrue(html.contains("href=\"/assets/app.css?c55\""));
+        assertTrue(html.contains("src=\"/assets/logo.png?b16\""));
+        assertTrue(html.contains("src=\"/assets/other.png\""));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void failsWithoutBodyTag() {
+        HtmlPostProcessor.process(request, "<html><head></head><p>Home</p></html>", versionMatcher);
+    }
+
+}
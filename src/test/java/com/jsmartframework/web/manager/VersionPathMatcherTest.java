@@ -0,0 +1,88 @@
+/*
+ * JSmart Framework - Java Web Development Framework
+ * Copyright (c) 2015, Jeferson Albino da Silva, All rights reserved.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3.0 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see <http://www.gnu.org/licenses/>.
+*/
+
+
+package com.jsmartframework.web.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VersionPathMatcherTest {
+
+    @Test
+    public void emptyMatcherKeepsText() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        String text = "<img src=\"/app/assets/logo.png\"/>";
+
+        assertTrue(matcher.isEmpty());
+        assertSame(text, matcher.apply(text));
+    }
+
+    @Test
+    public void appendsVersionToKnownPaths() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        matcher.add("assets/logo.png", "1a2b");
+        matcher.add("assets/app.js", "3c4d");
+
+        assertEquals("<img src=\"/app/assets/logo.png?1a2b\"/><script src=\"assets/app.js?3c4d\"></script>",
+                matcher.apply("<img src=\"/app/assets/logo.png\"/><script src=\"assets/app.js\"></script>"));
+    }
+
+    @Test
+    public void keepsUnknownPathsAndPrefixes() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        matcher.add("assets/app.js", "3c4d");
+
+        assertEquals("assets/app.css assets/app.j", matcher.apply("assets/app.css assets/app.j"));
+    }
+
+    @Test
+    public void longestPathWins() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        matcher.add("assets/app.js", "short");
+        matcher.add("assets/app.js.map", "long");
+
+        assertEquals("assets/app.js.map?long assets/app.js?short",
+                matcher.apply("assets/app.js.map assets/app.js"));
+    }
+
+    @Test
+    public void matchesPathsStartingWithNonAsciiChars() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        matcher.add("\u00edcone.png", "9f");
+
+        assertEquals("/img/\u00edcone.png?9f", matcher.apply("/img/\u00edcone.png"));
+    }
+
+    @Test
+    public void appendMatchReturnsEndOfPath() {
+        VersionPathMatcher matcher = new VersionPathMatcher();
+        matcher.add("a.js", "1");
+
+        StringBuilder builder = new StringBuilder();
+        assertEquals(-1, matcher.appendMatch("b.js a.js", 0, builder));
+        assertEquals(0, builder.length());
+
+        assertEquals(9, matcher.appendMatch("b.js a.js", 5, builder));
+        assertEquals("a.js?1", builder.toString());
+    }
+
+}